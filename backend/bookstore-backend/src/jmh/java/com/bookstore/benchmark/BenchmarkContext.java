@@ -0,0 +1,111 @@
+package com.bookstore.benchmark;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.bookstore.cache.BookCache;
+import com.bookstore.cache.BookQueryCache;
+import com.bookstore.cache.CatalogVersion;
+import com.bookstore.cache.SingleFlight;
+import com.bookstore.cache.UserFavoriteCache;
+import com.bookstore.counter.FavoriteCountAggregator;
+import com.bookstore.counter.FavoriteLeaderboard;
+import com.bookstore.entity.Book;
+import com.bookstore.entity.Favorite;
+import com.bookstore.mapper.BookMapper;
+import com.bookstore.search.BookFacetIndex;
+import com.bookstore.search.BookSearchIndex;
+import com.bookstore.search.BookSuggestIndex;
+import com.bookstore.search.SqlBookSearch;
+import com.bookstore.service.impl.BookServiceImpl;
+import com.bookstore.service.impl.FavoriteServiceImpl;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+/**
+ * 不启动 Spring 容器，按生产代码的依赖关系手动装配服务，Mapper 使用合成目录的内存实现
+ */
+class BenchmarkContext {
+
+    final SyntheticCatalog catalog;
+
+    final BookServiceImpl bookService = new BookServiceImpl();
+
+    final FavoriteServiceImpl favoriteService = new FavoriteServiceImpl();
+
+    final BookQueryCache bookQueryCache = new BookQueryCache();
+
+    final BookCache bookCache = new BookCache();
+
+    final UserFavoriteCache userFavoriteCache = new UserFavoriteCache();
+
+    final FavoriteCountAggregator favoriteCountAggregator = new FavoriteCountAggregator();
+
+    /**
+     * @param catalog 合成目录
+     * @param writeBehind 收藏数是否使用写回模式
+     * @param searchBackend 关键词检索后端，memory 或 sql（sql 由合成目录的内存 Mapper 模拟 LIKE 查询）
+     */
+    BenchmarkContext(SyntheticCatalog catalog, boolean writeBehind, String searchBackend) {
+        this.catalog = catalog;
+        BookMapper bookMapper = catalog.bookMapper();
+
+        // LambdaQueryWrapper 依赖实体的表信息，不启动容器时需手动解析
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, Book.class);
+        TableInfoHelper.initTableInfo(assistant, Favorite.class);
+
+        setField(bookCache, "maxSize", 10000L);
+        setField(bookCache, "ttlSeconds", 300L);
+        bookCache.init();
+        setField(bookQueryCache, "maxSize", 1000L);
+        setField(bookQueryCache, "ttlSeconds", 60L);
+        bookQueryCache.init();
+        setField(userFavoriteCache, "maxBytes", 64L << 20);
+        setField(userFavoriteCache, "ttlSeconds", 600L);
+        userFavoriteCache.init();
+
+        CatalogVersion catalogVersion = new CatalogVersion();
+
+        BookSearchIndex bookSearchIndex = new BookSearchIndex();
+        setField(bookSearchIndex, "bookMapper", bookMapper);
+        BookSuggestIndex bookSuggestIndex = new BookSuggestIndex();
+        setField(bookSuggestIndex, "bookMapper", bookMapper);
+        BookFacetIndex bookFacetIndex = new BookFacetIndex();
+        setField(bookFacetIndex, "bookMapper", bookMapper);
+        setField(bookFacetIndex, "priceEdges", new int[]{20, 50, 100, 200});
+        bookFacetIndex.init();
+        SqlBookSearch sqlBookSearch = new SqlBookSearch();
+        setField(sqlBookSearch, "bookMapper", bookMapper);
+        setField(sqlBookSearch, "fulltext", false);
+        FavoriteLeaderboard favoriteLeaderboard = new FavoriteLeaderboard();
+        setField(favoriteLeaderboard, "bookMapper", bookMapper);
+
+        // 写回模式下不启动后台刷新线程，只度量累加的开销
+        setField(favoriteCountAggregator, "enabled", writeBehind);
+        setField(favoriteCountAggregator, "bookMapper", bookMapper);
+        setField(favoriteCountAggregator, "bookCache", bookCache);
+        setField(favoriteCountAggregator, "bookQueryCache", bookQueryCache);
+        setField(favoriteCountAggregator, "catalogVersion", catalogVersion);
+        setField(favoriteCountAggregator, "favoriteLeaderboard", favoriteLeaderboard);
+        setField(favoriteCountAggregator, "bookSuggestIndex", bookSuggestIndex);
+        setField(favoriteCountAggregator, "bookFacetIndex", bookFacetIndex);
+
+        setField(bookService, "baseMapper", bookMapper);
+        setField(bookService, "bookSearchIndex", bookSearchIndex);
+        setField(bookService, "sqlBookSearch", sqlBookSearch);
+        setField(bookService, "bookSuggestIndex", bookSuggestIndex);
+        setField(bookService, "bookFacetIndex", bookFacetIndex);
+        setField(bookService, "searchBackend", searchBackend);
+        setField(bookService, "favoriteCountAggregator", favoriteCountAggregator);
+        setField(bookService, "bookCache", bookCache);
+        setField(bookService, "singleFlight", new SingleFlight());
+        setField(bookService, "bookQueryCache", bookQueryCache);
+        setField(bookService, "catalogVersion", catalogVersion);
+        setField(bookService, "favoriteLeaderboard", favoriteLeaderboard);
+
+        setField(favoriteService, "baseMapper", catalog.favoriteMapper());
+        setField(favoriteService, "bookService", bookService);
+        setField(favoriteService, "userFavoriteCache", userFavoriteCache);
+    }
+}
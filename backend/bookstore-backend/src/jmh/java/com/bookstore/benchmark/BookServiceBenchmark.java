@@ -0,0 +1,73 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.entity.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图书查询与排序基准测试
+ * 覆盖 listAllBooks 和 listAllBooksAndSortByFavoriteCount，
+ * 查询词为空时走全量路径，非空时走索引/查询缓存路径；cold 变体每次调用前清空查询缓存。
+ * searchBackend 为 sql 时关键词检索交给 Mapper，这里的 Mapper 是内存实现，只反映服务层开销，不代表数据库耗时。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BookServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    @Param({"", "编程", "java"})
+    private String query;
+
+    @Param({"memory", "sql"})
+    private String searchBackend;
+
+    private BenchmarkContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(new SyntheticCatalog(catalogSize, 100), false, searchBackend);
+        // 预先构建搜索索引，避免首次构建计入测量
+        context.bookService.listAllBooks("预热");
+    }
+
+    @Benchmark
+    public List<Book> listAllBooks() {
+        return context.bookService.listAllBooks(query);
+    }
+
+    @Benchmark
+    public List<Book> listAllBooksCold() {
+        context.bookQueryCache.invalidateAll();
+        return context.bookService.listAllBooks(query);
+    }
+
+    @Benchmark
+    public List<Book> sortByFavoriteCount() {
+        return context.bookService.listAllBooksAndSortByFavoriteCount(query, "desc");
+    }
+
+    @Benchmark
+    public List<Book> sortByFavoriteCountCold() {
+        context.bookQueryCache.invalidateAll();
+        return context.bookService.listAllBooksAndSortByFavoriteCount(query, "desc");
+    }
+}
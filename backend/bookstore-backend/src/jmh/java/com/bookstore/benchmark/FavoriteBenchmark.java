@@ -0,0 +1,86 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.entity.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 收藏相关路径基准测试
+ * 覆盖收藏列表加载、收藏状态判断（单本和批量）以及收藏数增减（同步和写回两种模式）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class FavoriteBenchmark {
+
+    /** 批量查询收藏状态时每次的图书数，与前端一页的数量一致 */
+    private static final int CHECK_BATCH = 20;
+
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    @Param({"false", "true"})
+    private boolean writeBehind;
+
+    private BenchmarkContext context;
+
+    private List<Long> checkIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(new SyntheticCatalog(catalogSize, 1000), writeBehind, "memory");
+        checkIds = new ArrayList<>(CHECK_BATCH);
+        for (int i = 0; i < CHECK_BATCH; i++) {
+            checkIds.add(1L + i * (long) (catalogSize / CHECK_BATCH));
+        }
+    }
+
+    @Benchmark
+    public List<Book> getAllUserFavorites() {
+        return context.favoriteService.getAllUserFavorites(SyntheticCatalog.USER_ID);
+    }
+
+    @Benchmark
+    public boolean isFavorite() {
+        return context.favoriteService.isFavorite(SyntheticCatalog.USER_ID, randomBookId());
+    }
+
+    @Benchmark
+    public List<Long> filterFavorites() {
+        return context.favoriteService.filterFavorites(SyntheticCatalog.USER_ID, checkIds);
+    }
+
+    /**
+     * 收藏数加一再减一，保持收藏数不越过上限
+     */
+    @Benchmark
+    @Threads(4)
+    public boolean incrementAndDecrement() {
+        long bookId = randomBookId();
+        return context.bookService.incrementFavoriteCount(bookId)
+                & context.bookService.decrementFavoriteCount(bookId);
+    }
+
+    private long randomBookId() {
+        return 1L + ThreadLocalRandom.current().nextInt(catalogSize);
+    }
+}
@@ -0,0 +1,281 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.entity.Book;
+import com.bookstore.entity.Favorite;
+import com.bookstore.mapper.BookMapper;
+import com.bookstore.mapper.FavoriteMapper;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 基准测试用的合成图书目录
+ * 按固定随机种子生成中英文书名的图书和单个用户的收藏，并提供基于内存的 Mapper 实现，
+ * 使基准测试只度量服务层自身的开销，不受数据库和网络影响。
+ * Mapper 只实现了基准测试会调用到的方法。
+ */
+public class SyntheticCatalog {
+
+    private static final String[] CJK_WORDS = {
+            "编程", "算法", "数据", "系统", "设计", "网络", "历史", "哲学", "经济", "文学",
+            "科学", "艺术", "心理", "管理", "人工智能", "机器学习", "分布式", "数据库", "三体", "时间简史"
+    };
+
+    private static final String[] LATIN_WORDS = {
+            "Java", "Python", "Spring", "Effective", "Clean", "Code", "Design", "Patterns", "Linux", "Kernel",
+            "Distributed", "Systems", "Deep", "Learning", "Modern", "Practical", "Guide", "Handbook"
+    };
+
+    private static final String[] CATEGORIES = {
+            "编程", "计算机", "科幻", "历史", "文学", "经济", "哲学", "艺术", "心理学", "管理"
+    };
+
+    private static final String[] AUTHORS = {
+            "刘慈欣", "余华", "鲁迅", "Bruce Eckel", "Joshua Bloch", "Martin Fowler", "Robert Martin",
+            "Donald Knuth", "钱钟书", "张爱玲", "Kent Beck", "Brian Goetz"
+    };
+
+    /** 基准测试使用的用户ID */
+    public static final long USER_ID = 1L;
+
+    private final List<Book> books;
+
+    private final Map<Long, Book> booksById;
+
+    private final List<Long> favoriteBookIds;
+
+    /**
+     * @param size 图书数量
+     * @param favorites 用户收藏的图书数量
+     */
+    public SyntheticCatalog(int size, int favorites) {
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        books = new ArrayList<>(size);
+        booksById = new HashMap<>(size * 2);
+        for (long id = 1; id <= size; id++) {
+            Book book = new Book();
+            book.setId(id);
+            book.setName(title(random));
+            book.setAuthor(AUTHORS[random.nextInt(AUTHORS.length)]);
+            book.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            book.setPrice(BigDecimal.valueOf(1000 + random.nextInt(20000), 2));
+            book.setDescription(book.getName() + "，" + book.getCategory() + "类图书");
+            book.setFavoriteCount(random.nextInt(1001));
+            book.setCreateTime(base.plusMinutes(id));
+            book.setUpdateTime(base.plusMinutes(random.nextInt(size)));
+            books.add(book);
+            booksById.put(id, book);
+        }
+
+        Set<Long> favoriteIds = new LinkedHashSet<>();
+        while (favoriteIds.size() < Math.min(favorites, size)) {
+            favoriteIds.add(1L + random.nextInt(size));
+        }
+        favoriteBookIds = new ArrayList<>(favoriteIds);
+    }
+
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    public List<Long> getFavoriteBookIds() {
+        return favoriteBookIds;
+    }
+
+    /**
+     * 基于内存的 BookMapper
+     */
+    @SuppressWarnings("unchecked")
+    public BookMapper bookMapper() {
+        return (BookMapper) Proxy.newProxyInstance(BookMapper.class.getClassLoader(),
+                new Class<?>[]{BookMapper.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "selectList" -> new ArrayList<>(books);
+                    case "selectById" -> booksById.get(((Number) args[0]).longValue());
+                    case "selectBatchIds" -> selectBatchIds((Collection<?>) args[0]);
+                    case "searchIds" -> searchIds((String) args[0], (List<Long>) args[2]);
+                    case "selectFavoriteSortIds" ->
+                            selectFavoriteSortIds((String) args[0], (List<Long>) args[2], (Boolean) args[3]);
+                    case "selectFavoriteCounts" -> selectBatchIds((Collection<?>) args[0]);
+                    case "scanSearchFields" -> scan((ResultHandler<Book>) args[0]);
+                    case "selectSearchFields" -> selectBatchIds((Collection<?>) args[0]);
+                    case "scanFavoriteCounts" -> scan((ResultHandler<Book>) args[0]);
+                    case "batchAddFavoriteCount" -> batchAddFavoriteCount((Map<Long, Long>) args[0], (Integer) args[1]);
+                    case "scanSuggestFields" -> scan((ResultHandler<Book>) args[0]);
+                    case "selectSuggestFields" -> selectBatchIds((Collection<?>) args[0]);
+                    case "scanFacetFields" -> scan((ResultHandler<Book>) args[0]);
+                    case "selectFacetFields" -> selectBatchIds((Collection<?>) args[0]);
+                    case "incrementFavoriteCount" -> incrementFavoriteCount((Long) args[0], (Integer) args[1]);
+                    case "decrementFavoriteCount" -> decrementFavoriteCount((Long) args[0]);
+                    case "toString" -> "SyntheticBookMapper";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * 基于内存的 FavoriteMapper，只包含 {@link #USER_ID} 一个用户的收藏
+     */
+    public FavoriteMapper favoriteMapper() {
+        return (FavoriteMapper) Proxy.newProxyInstance(FavoriteMapper.class.getClassLoader(),
+                new Class<?>[]{FavoriteMapper.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "selectList" -> favoriteBookIds.stream()
+                            .map(bookId -> new Favorite(USER_ID, bookId))
+                            .collect(Collectors.toList());
+                    case "selectUserFavoriteBooks" -> selectBatchIds(favoriteBookIds);
+                    case "toString" -> "SyntheticFavoriteMapper";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private List<Book> selectBatchIds(Collection<?> ids) {
+        List<Book> result = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            Book book = booksById.get(((Number) id).longValue());
+            if (book != null) {
+                result.add(book);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 与 BookMapper.xml 中 searchIds 的 LIKE 过滤（不含描述）、matchedIds 和更新时间排序一致，不模拟全文索引
+     */
+    private List<Long> searchIds(String keyword, List<Long> matchedIds) {
+        String lowerKeyword = lowerKeyword(keyword);
+        return books.stream()
+                .filter(book -> book.getName().toLowerCase().contains(lowerKeyword)
+                        || book.getAuthor().toLowerCase().contains(lowerKeyword)
+                        || book.getCategory().toLowerCase().contains(lowerKeyword)
+                        || (matchedIds != null && matchedIds.contains(book.getId())))
+                .sorted(Comparator.comparing(Book::getUpdateTime).reversed().thenComparing(Book::getId))
+                .map(Book::getId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 与 BookMapper.xml 中的 LIKE 过滤、matchedIds 和收藏量排序一致
+     */
+    private List<Long> selectFavoriteSortIds(String keyword, List<Long> matchedIds, boolean asc) {
+        String lowerKeyword = lowerKeyword(keyword);
+        Comparator<Book> byCount = Comparator.comparing(Book::getFavoriteCount);
+        if (!asc) {
+            byCount = byCount.reversed();
+        }
+        return books.stream()
+                .filter(book -> lowerKeyword == null || matches(book, lowerKeyword)
+                        || (matchedIds != null && matchedIds.contains(book.getId())))
+                .sorted(byCount.thenComparing(Book::getId))
+                .map(Book::getId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 逐行交给 ResultHandler，与 MyBatis 的流式查询一致
+     */
+    private Object scan(ResultHandler<Book> handler) {
+        int[] count = {0};
+        boolean[] stopped = {false};
+        for (Book book : books) {
+            count[0]++;
+            handler.handleResult(new ResultContext<>() {
+                @Override
+                public Book getResultObject() {
+                    return book;
+                }
+
+                @Override
+                public int getResultCount() {
+                    return count[0];
+                }
+
+                @Override
+                public boolean isStopped() {
+                    return stopped[0];
+                }
+
+                @Override
+                public void stop() {
+                    stopped[0] = true;
+                }
+            });
+            if (stopped[0]) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 与 BookMapper.xml 一致：结果不低于0，超出上限时截断（原值已超出上限时不再增加）
+     */
+    private int batchAddFavoriteCount(Map<Long, Long> deltas, int max) {
+        int rows = 0;
+        for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+            Book book = booksById.get(entry.getKey());
+            if (book != null) {
+                long count = book.getFavoriteCount() + entry.getValue();
+                book.setFavoriteCount((int) Math.min(Math.max(count, 0), Math.max(book.getFavoriteCount(), max)));
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private int incrementFavoriteCount(Long id, int max) {
+        Book book = booksById.get(id);
+        if (book == null || book.getFavoriteCount() >= max) {
+            return 0;
+        }
+        book.setFavoriteCount(book.getFavoriteCount() + 1);
+        return 1;
+    }
+
+    private int decrementFavoriteCount(Long id) {
+        Book book = booksById.get(id);
+        if (book == null) {
+            return 0;
+        }
+        book.setFavoriteCount(Math.max(book.getFavoriteCount() - 1, 0));
+        return 1;
+    }
+
+    private static String lowerKeyword(String keyword) {
+        return keyword == null ? null : keyword.replaceAll("\\\\(.)", "$1").toLowerCase();
+    }
+
+    private static boolean matches(Book book, String lowerKeyword) {
+        return book.getName().toLowerCase().contains(lowerKeyword)
+                || book.getAuthor().toLowerCase().contains(lowerKeyword)
+                || book.getCategory().toLowerCase().contains(lowerKeyword)
+                || book.getDescription().toLowerCase().contains(lowerKeyword);
+    }
+
+    private static String title(Random random) {
+        StringBuilder title = new StringBuilder();
+        if (random.nextBoolean()) {
+            title.append(LATIN_WORDS[random.nextInt(LATIN_WORDS.length)]).append(' ')
+                    .append(LATIN_WORDS[random.nextInt(LATIN_WORDS.length)]);
+        } else {
+            title.append(CJK_WORDS[random.nextInt(CJK_WORDS.length)])
+                    .append(CJK_WORDS[random.nextInt(CJK_WORDS.length)]);
+        }
+        if (random.nextInt(4) == 0) {
+            title.append(" 第").append(2 + random.nextInt(5)).append("版");
+        }
+        return title.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package com.bookstore.bulk;
+
+import java.util.Locale;
+
+/**
+ * 图书导入导出的数据格式
+ */
+public enum BookDataFormat {
+
+    /** 首行为列名，UTF-8 编码 */
+    CSV("text/csv", "csv"),
+
+    /** 每行一个 JSON 对象，UTF-8 编码 */
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+
+    private final String extension;
+
+    BookDataFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * 按请求的 Content-Type 判断格式
+     * @throws IllegalArgumentException 不支持的类型
+     */
+    public static BookDataFormat ofContentType(String contentType) {
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        for (BookDataFormat format : values()) {
+            if (type.startsWith(format.contentType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("不支持的导入格式：" + contentType);
+    }
+
+    /**
+     * 按名称（csv、ndjson）判断格式
+     * @throws IllegalArgumentException 不支持的格式
+     */
+    public static BookDataFormat ofName(String name) {
+        for (BookDataFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("不支持的导出格式：" + name);
+    }
+}
@@ -0,0 +1,113 @@
+package com.bookstore.bulk;
+
+import com.bookstore.entity.Book;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 图书导出数据的逐行写出
+ * CSV 的列名与导入一致，导出的文件可以直接重新导入；NDJSON 每行为一本图书的完整 JSON。
+ * 每本图书写完即可丢弃，写出的内容先进入固定大小的缓冲区，内存占用与图书数量无关。
+ */
+public class BookExportWriter implements Flushable {
+
+    static final String CSV_HEADER =
+            "id,name,author,category,price,description,favoriteCount,createTime,updateTime";
+
+    private final BookDataFormat format;
+
+    private final Writer writer;
+
+    private final JsonGenerator generator;
+
+    /**
+     * @param out 输出流，由调用方负责关闭
+     */
+    public BookExportWriter(OutputStream out, BookDataFormat format, ObjectMapper objectMapper) throws IOException {
+        this.format = format;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == BookDataFormat.CSV) {
+            this.generator = null;
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        } else {
+            this.generator = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // 每个对象之后写换行，不使用默认的空格分隔
+            generator.setRootValueSeparator(null);
+        }
+    }
+
+    public void write(Book book) throws IOException {
+        if (format == BookDataFormat.CSV) {
+            writeCsv(book);
+        } else {
+            generator.writeObject(book);
+            generator.writeRaw('\n');
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (generator != null) {
+            generator.flush();
+        }
+        writer.flush();
+    }
+
+    private void writeCsv(Book book) throws IOException {
+        writer.write(String.valueOf(book.getId()));
+        writer.write(',');
+        writeField(book.getName());
+        writer.write(',');
+        writeField(book.getAuthor());
+        writer.write(',');
+        writeField(book.getCategory());
+        writer.write(',');
+        writeField(book.getPrice() == null ? null : book.getPrice().toPlainString());
+        writer.write(',');
+        writeField(book.getDescription());
+        writer.write(',');
+        writeField(book.getFavoriteCount() == null ? null : book.getFavoriteCount().toString());
+        writer.write(',');
+        writeField(time(book.getCreateTime()));
+        writer.write(',');
+        writeField(time(book.getUpdateTime()));
+        writer.write('\n');
+    }
+
+    /**
+     * 含逗号、双引号或换行的字段用双引号包围，字段中的双引号写两次；null 写为空字段
+     */
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static String time(LocalDateTime time) {
+        return time == null ? null : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(time);
+    }
+}
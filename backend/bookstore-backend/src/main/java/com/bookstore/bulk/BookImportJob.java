@@ -0,0 +1,95 @@
+package com.bookstore.bulk;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 图书导入任务的进度和结果
+ * 只由导入线程更新，其他请求随时可以读取
+ */
+@Getter
+public class BookImportJob {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * 出错的行
+     * @param line 行号
+     * @param message 错误信息
+     */
+    public record RowError(long line, String message) {
+    }
+
+    private final String id;
+
+    private final BookDataFormat format;
+
+    private final LocalDateTime startTime = LocalDateTime.now();
+
+    private volatile Status status = Status.RUNNING;
+
+    /** 已读取的行数（不含空行和 CSV 列名） */
+    private volatile long readRows;
+
+    /** 已提交的行数 */
+    private volatile long importedRows;
+
+    /** 校验或写入失败的行数 */
+    private volatile long failedRows;
+
+    /** 出错的行，超过上限后只计数 */
+    private final List<RowError> errors = new CopyOnWriteArrayList<>();
+
+    private volatile LocalDateTime endTime;
+
+    /** 任务中断的原因 */
+    private volatile String message;
+
+    @Getter(AccessLevel.NONE)
+    private final int maxErrors;
+
+    BookImportJob(String id, BookDataFormat format, int maxErrors) {
+        this.id = id;
+        this.format = format;
+        this.maxErrors = maxErrors;
+    }
+
+    void rowRead() {
+        readRows++;
+    }
+
+    void rowFailed(long line, String error) {
+        failedRows++;
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(line, error));
+        }
+    }
+
+    void rowsFailed(int rows, long line, String error) {
+        failedRows += rows;
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(line, error));
+        }
+    }
+
+    void rowsImported(int rows) {
+        importedRows += rows;
+    }
+
+    void complete() {
+        endTime = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    void fail(String message) {
+        this.message = message;
+        endTime = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+}
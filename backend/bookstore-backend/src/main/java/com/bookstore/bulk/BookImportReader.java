@@ -0,0 +1,304 @@
+package com.bookstore.bulk;
+
+import com.bookstore.entity.Book;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 图书导入数据的逐行读取和校验
+ * 支持 CSV（首行为列名，字段可用双引号包围）和 NDJSON（每行一个 JSON 对象），
+ * 识别 name、author、category、price、description 字段，其余字段忽略；导入的图书收藏数为0。
+ * 只在内存中保留当前行，单行超过长度上限时只记录错误，不继续缓存内容。
+ */
+public class BookImportReader {
+
+    /** 单行（CSV 为单条记录）的字符数上限 */
+    static final int MAX_LINE_CHARS = 16 * 1024;
+
+    /** 与 book 表的列长度一致 */
+    private static final int MAX_NAME_LENGTH = 200;
+
+    private static final int MAX_AUTHOR_LENGTH = 100;
+
+    private static final int MAX_CATEGORY_LENGTH = 50;
+
+    private static final int MAX_DESCRIPTION_LENGTH = 1000;
+
+    /** 价格列为 DECIMAL(10, 2) */
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+
+    /**
+     * 读取的一行
+     * @param line 所在行号（CSV 记录跨行时为第一行），从1开始
+     * @param book 校验通过的图书，出错时为null
+     * @param error 错误信息，校验通过时为null
+     */
+    public record Row(long line, Book book, String error) {
+    }
+
+    private final BufferedReader reader;
+
+    private final BookDataFormat format;
+
+    private final ObjectMapper objectMapper;
+
+    /** CSV 列名 -> 列序号 */
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    /** 已读取的行数 */
+    private long lines;
+
+    /**
+     * CSV 格式在创建时读取首行列名
+     * @throws IllegalArgumentException 缺少列名或没有 name 列
+     */
+    public BookImportReader(Reader reader, BookDataFormat format, ObjectMapper objectMapper) throws IOException {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        this.format = format;
+        this.objectMapper = objectMapper;
+        skipBom();
+        if (format == BookDataFormat.CSV) {
+            List<String> header = readCsvRecord();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV 缺少列名");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!columns.containsKey("name")) {
+                throw new IllegalArgumentException("CSV 缺少 name 列");
+            }
+        }
+    }
+
+    /**
+     * 读取下一行，跳过空行
+     * @return 读取结果，没有更多数据时返回null
+     */
+    public Row next() throws IOException {
+        while (true) {
+            long line = lines + 1;
+            Map<String, String> fields;
+            try {
+                fields = format == BookDataFormat.CSV ? readCsvFields() : readJsonFields();
+            } catch (IllegalArgumentException e) {
+                return new Row(line, null, e.getMessage());
+            }
+            if (fields == null) {
+                return null;
+            }
+            if (fields.isEmpty()) {
+                continue;
+            }
+            try {
+                return new Row(line, toBook(fields), null);
+            } catch (IllegalArgumentException e) {
+                return new Row(line, null, e.getMessage());
+            }
+        }
+    }
+
+    private void skipBom() throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+    }
+
+    /**
+     * @return 字段，空行返回空Map，没有更多数据时返回null
+     */
+    private Map<String, String> readCsvFields() throws IOException {
+        List<String> record = readCsvRecord();
+        if (record == null) {
+            return null;
+        }
+        Map<String, String> fields = new HashMap<>();
+        if (record.size() == 1 && record.get(0).isBlank()) {
+            return fields;
+        }
+        columns.forEach((name, index) -> {
+            if (index < record.size()) {
+                fields.put(name, record.get(index));
+            }
+        });
+        return fields;
+    }
+
+    /**
+     * 按 RFC 4180 读取一条记录：双引号内可以包含逗号和换行，两个双引号表示一个双引号
+     * @return 各列的值，没有更多数据时返回null
+     * @throws IllegalArgumentException 记录过长或引号未闭合，出错的记录已完整读过
+     */
+    private List<String> readCsvRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int length = 0;
+        boolean quoted = false;
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        lines++;
+        for (; c != -1; c = reader.read()) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                    continue;
+                }
+                if (c == '\n') {
+                    lines++;
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+                continue;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                continue;
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                break;
+            }
+            if (++length <= MAX_LINE_CHARS) {
+                field.append((char) c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("引号未闭合");
+        }
+        if (length > MAX_LINE_CHARS) {
+            throw new IllegalArgumentException("记录超过 " + MAX_LINE_CHARS + " 个字符");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * @return 字段，空行返回空Map，没有更多数据时返回null
+     */
+    private Map<String, String> readJsonFields() throws IOException {
+        String line = readLine();
+        if (line == null) {
+            return null;
+        }
+        Map<String, String> fields = new HashMap<>();
+        if (line.isBlank()) {
+            return fields;
+        }
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON 格式错误");
+        }
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("每行应为一个 JSON 对象");
+        }
+        for (String name : List.of("name", "author", "category", "price", "description")) {
+            JsonNode value = node.get(name);
+            if (value == null || value.isNull()) {
+                continue;
+            }
+            if (!value.isValueNode()) {
+                throw new IllegalArgumentException(name + " 应为字符串或数字");
+            }
+            fields.put(name, value.asText());
+        }
+        // 没有任何已知字段的对象按缺少书名处理，而不是当作空行跳过
+        fields.putIfAbsent("name", "");
+        return fields;
+    }
+
+    /**
+     * @throws IllegalArgumentException 行过长，该行已完整读过
+     */
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int length = 0;
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        lines++;
+        for (; c != -1 && c != '\n'; c = reader.read()) {
+            if (++length <= MAX_LINE_CHARS) {
+                line.append((char) c);
+            }
+        }
+        if (length > MAX_LINE_CHARS) {
+            throw new IllegalArgumentException("行超过 " + MAX_LINE_CHARS + " 个字符");
+        }
+        return line.toString();
+    }
+
+    private static Book toBook(Map<String, String> fields) {
+        Book book = new Book();
+        book.setName(text(fields, "name", MAX_NAME_LENGTH));
+        if (book.getName() == null) {
+            throw new IllegalArgumentException("书名不能为空");
+        }
+        book.setAuthor(text(fields, "author", MAX_AUTHOR_LENGTH));
+        book.setCategory(text(fields, "category", MAX_CATEGORY_LENGTH));
+        book.setDescription(text(fields, "description", MAX_DESCRIPTION_LENGTH));
+        book.setPrice(price(fields.get("price")));
+        book.setFavoriteCount(0);
+        return book;
+    }
+
+    /**
+     * 去掉首尾空白，空字符串按null处理
+     */
+    private static String text(Map<String, String> fields, String name, int maxLength) {
+        String value = fields.get(name);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        value = value.trim();
+        if (value.length() > maxLength) {
+            throw new IllegalArgumentException(name + " 超过 " + maxLength + " 个字符");
+        }
+        return value;
+    }
+
+    private static BigDecimal price(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        BigDecimal price;
+        try {
+            price = new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("价格格式错误：" + value.trim());
+        }
+        if (price.signum() < 0 || price.compareTo(MAX_PRICE) > 0) {
+            throw new IllegalArgumentException("价格超出范围：" + value.trim());
+        }
+        if (price.stripTrailingZeros().scale() > 2) {
+            throw new IllegalArgumentException("价格最多两位小数：" + value.trim());
+        }
+        return price.setScale(2);
+    }
+}
@@ -0,0 +1,249 @@
+package com.bookstore.bulk;
+
+import com.bookstore.cache.BookQueryCache;
+import com.bookstore.cache.CatalogVersion;
+import com.bookstore.counter.FavoriteLeaderboard;
+import com.bookstore.entity.Book;
+import com.bookstore.search.BookFacetIndex;
+import com.bookstore.search.BookSearchIndex;
+import com.bookstore.search.BookSuggestIndex;
+import com.bookstore.search.SqlBookSearch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 图书批量导入
+ * 边读边校验，每满一批用一条 JDBC 批量 INSERT 写入（MySQL 需在连接参数中开启 rewriteBatchedStatements 合并为多值插入），
+ * 每批一个事务，提交后立即归还连接并更新索引，导入期间其他请求照常读写。
+ * 同一时间只运行一个导入任务；内存占用只与批大小有关，与导入的行数无关。
+ */
+@Slf4j
+@Component
+public class BookImporter {
+
+    private static final String INSERT_SQL = "INSERT INTO book (name, author, category, price, description,"
+            + " favorite_count, create_time, update_time) VALUES (?, ?, ?, ?, ?, 0, ?, ?)";
+
+    /** 保留最近的任务数 */
+    private static final int MAX_JOBS = 20;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private SqlBookSearch sqlBookSearch;
+
+    @Autowired
+    private FavoriteLeaderboard favoriteLeaderboard;
+
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+
+    @Autowired
+    private BookFacetIndex bookFacetIndex;
+
+    @Autowired
+    private BookQueryCache bookQueryCache;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Value("${bookstore.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${bookstore.import.max-errors:100}")
+    private int maxErrors;
+
+    private final Semaphore running = new Semaphore(1);
+
+    /** 最近的任务，按开始时间排列 */
+    private final Map<String, BookImportJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BookImportJob> eldest) {
+            return size() > MAX_JOBS;
+        }
+    };
+
+    /**
+     * 导入图书，读完输入后返回
+     * 读取或写入出错时任务中止，已提交的批次保留，结果中记录中止原因
+     * @param input 导入数据
+     * @param format 数据格式
+     * @throws IllegalStateException 已有导入任务在进行
+     * @throws IllegalArgumentException CSV 缺少列名
+     */
+    public BookImportJob importBooks(Reader input, BookDataFormat format) throws IOException {
+        if (!running.tryAcquire()) {
+            throw new IllegalStateException("已有导入任务在进行中");
+        }
+        try {
+            BookImportReader reader = new BookImportReader(input, format, objectMapper);
+            BookImportJob job = new BookImportJob(UUID.randomUUID().toString(), format, maxErrors);
+            synchronized (jobs) {
+                jobs.put(job.getId(), job);
+            }
+            run(reader, job);
+            return job;
+        } finally {
+            running.release();
+        }
+    }
+
+    /**
+     * 最近的导入任务，最新的在前
+     */
+    public List<BookImportJob> recentJobs() {
+        synchronized (jobs) {
+            List<BookImportJob> result = new ArrayList<>(jobs.values());
+            Collections.reverse(result);
+            return result;
+        }
+    }
+
+    public BookImportJob getJob(String id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    private void run(BookImportReader reader, BookImportJob job) {
+        List<Book> batch = new ArrayList<>(batchSize);
+        long firstLine = 0;
+        try {
+            BookImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                job.rowRead();
+                if (row.error() != null) {
+                    job.rowFailed(row.line(), row.error());
+                    continue;
+                }
+                if (batch.isEmpty()) {
+                    firstLine = row.line();
+                }
+                batch.add(row.book());
+                if (batch.size() >= batchSize) {
+                    write(batch, job);
+                    batch.clear();
+                }
+            }
+            write(batch, job);
+            job.complete();
+        } catch (IOException e) {
+            log.warn("图书导入读取中断：{}", e.getMessage());
+            job.fail("读取中断：" + e.getMessage());
+        } catch (DataAccessException | TransactionException e) {
+            log.error("图书导入写入失败", e);
+            // 失败的批次整批回滚
+            job.rowsFailed(batch.size(), firstLine, "从该行起的 " + batch.size() + " 行写入失败");
+            job.fail("写入失败：" + e.getMostSpecificCause().getMessage());
+        }
+        log.info("图书导入结束：任务 {}，读取 {} 行，导入 {} 行，失败 {} 行",
+                job.getId(), job.getReadRows(), job.getImportedRows(), job.getFailedRows());
+    }
+
+    /**
+     * 在一个事务中批量插入，提交后更新索引
+     */
+    private void write(List<Book> batch, BookImportJob job) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // 与数据库 DATETIME 的精度一致，索引中的更新时间与数据库相同
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        Timestamp time = Timestamp.valueOf(now);
+        KeyHolder keys = new GeneratedKeyHolder();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Book book = batch.get(i);
+                        ps.setString(1, book.getName());
+                        ps.setString(2, book.getAuthor());
+                        ps.setString(3, book.getCategory());
+                        if (book.getPrice() == null) {
+                            ps.setNull(4, Types.DECIMAL);
+                        } else {
+                            ps.setBigDecimal(4, book.getPrice());
+                        }
+                        ps.setString(5, book.getDescription());
+                        ps.setTimestamp(6, time);
+                        ps.setTimestamp(7, time);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                },
+                keys));
+        job.rowsImported(batch.size());
+        afterBatchCommit(batch, keys.getKeyList(), now);
+    }
+
+    /**
+     * 用刚写入的数据更新索引；驱动没有返回全部自增ID时无法逐本更新，清空索引等待下一次查询时重新加载
+     * 在批次提交之后调用：索引正在全量加载时，加载可能没有读到这一批，refresh 会记录为失效，加载完成后重新读取
+     */
+    private void afterBatchCommit(List<Book> batch, List<Map<String, Object>> keys, LocalDateTime now) {
+        if (keys.size() == batch.size()) {
+            for (int i = 0; i < batch.size(); i++) {
+                Book book = batch.get(i);
+                book.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+                book.setCreateTime(now);
+                book.setUpdateTime(now);
+                bookSearchIndex.refresh(book.getId(), book);
+                sqlBookSearch.refresh(book.getId(), book);
+                favoriteLeaderboard.refresh(book.getId(), book);
+                bookFacetIndex.refresh(book.getId(), book);
+                // 输入提示逐本更新的开销较大，标记失效后在下一次提示前批量加载
+                bookSuggestIndex.markStale(book.getId());
+            }
+        } else {
+            log.warn("批量插入返回的自增ID数 {} 与行数 {} 不一致，清空索引", keys.size(), batch.size());
+            bookSearchIndex.reset();
+            sqlBookSearch.reset();
+            favoriteLeaderboard.reset();
+            bookSuggestIndex.reset();
+            bookFacetIndex.reset();
+        }
+        // 新图书可能匹配任意已缓存的查询
+        bookQueryCache.invalidateAll();
+        catalogVersion.increment();
+    }
+}
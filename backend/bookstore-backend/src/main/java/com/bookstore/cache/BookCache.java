@@ -0,0 +1,110 @@
+package com.bookstore.cache;
+
+import com.bookstore.entity.Book;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 图书详情本地缓存
+ * 按图书ID缓存，容量和过期时间可配置，图书修改、删除以及收藏数变化时失效。
+ * 缓存中的对象由多个请求共享，调用方不应修改返回的图书。
+ * 写入需带上加载前取得的版本号：加载期间该图书被失效过时不缓存加载结果，避免旧数据在缓存中停留到过期。
+ */
+@Component
+public class BookCache {
+
+    @Value("${bookstore.cache.book.max-size:10000}")
+    private long maxSize;
+
+    @Value("${bookstore.cache.book.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    /** 失效版本号的分段数，按图书ID取模 */
+    private static final int VERSION_STRIPES = 1024;
+
+    /** 按图书ID分段的失效版本号，用于判断加载期间图书是否被失效 */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private Cache<Long, Book> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 获取缓存的图书，未命中返回null
+     */
+    public Book get(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    /**
+     * 图书当前的失效版本号，在从数据库加载之前取得
+     */
+    public long version(Long id) {
+        return versions.get(stripe(id));
+    }
+
+    /**
+     * 缓存加载结果，加载期间图书被失效过时不缓存
+     * 先写入再检查一次版本号：写入与失效并发时，由后检查的一方移除刚写入的旧数据
+     * @param book 加载的图书
+     * @param version 加载前取得的 {@link #version}
+     * @return 是否已缓存
+     */
+    public boolean put(Book book, long version) {
+        int stripe = stripe(book.getId());
+        if (versions.get(stripe) != version) {
+            return false;
+        }
+        cache.put(book.getId(), book);
+        if (versions.get(stripe) != version) {
+            cache.asMap().remove(book.getId(), book);
+            return false;
+        }
+        return true;
+    }
+
+    public void invalidate(Long id) {
+        versions.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * 底层缓存，用于注册监控指标
+     */
+    public Cache<Long, Book> nativeCache() {
+        return cache;
+    }
+
+    private static int stripe(Long id) {
+        return (int) (id & (VERSION_STRIPES - 1));
+    }
+}
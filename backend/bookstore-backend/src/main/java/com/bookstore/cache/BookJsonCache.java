@@ -0,0 +1,103 @@
+package com.bookstore.cache;
+
+import com.bookstore.dto.BookListItem;
+import com.bookstore.dto.JsonFragment;
+import com.bookstore.entity.Book;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 列表图书的 JSON 片段缓存
+ * 按图书ID缓存 {@link BookListItem} 序列化后的 JSON，输出列表时直接写入。
+ * 每次使用前与当前图书的列表字段比较，字段有变化时重新序列化，因此不需要随图书修改失效。
+ * 容量按 JSON 字节数限制。
+ */
+@Component
+public class BookJsonCache {
+
+    @Value("${bookstore.cache.book-json.max-bytes:33554432}")
+    private long maxBytes;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Cache<Long, Entry> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long id, Entry entry) -> entry.json().byteLength())
+                .recordStats()
+                .build();
+    }
+
+    public List<JsonFragment> toJson(List<Book> books) {
+        List<JsonFragment> result = new ArrayList<>(books.size());
+        for (Book book : books) {
+            result.add(toJson(book));
+        }
+        return result;
+    }
+
+    public JsonFragment toJson(Book book) {
+        if (book.getId() == null) {
+            return serialize(BookListItem.from(book));
+        }
+        Entry entry = cache.getIfPresent(book.getId());
+        if (entry != null && entry.item().matches(book)) {
+            return entry.json();
+        }
+        BookListItem item = BookListItem.from(book);
+        JsonFragment json = serialize(item);
+        cache.put(book.getId(), new Entry(item, json));
+        return json;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public long weightedSize() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * 底层缓存，用于注册监控指标
+     */
+    public Cache<Long, ?> nativeCache() {
+        return cache;
+    }
+
+    private JsonFragment serialize(BookListItem item) {
+        try {
+            return new JsonFragment(objectMapper.writeValueAsString(item));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Entry(BookListItem item, JsonFragment json) {
+    }
+}
@@ -0,0 +1,276 @@
+package com.bookstore.cache;
+
+import com.bookstore.entity.Book;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 图书查询结果缓存
+ * 以规范化后的查询词（NFKC、去首尾空白、小写）加排序类型为 key，只缓存命中的图书ID列表，不缓存实体。
+ * 图书的检索字段变化时只失效受影响的条目；收藏数变化时只把按收藏量排序的条目标记为需要重排。
+ * 加载期间发生过失效时不缓存加载结果；按收藏量排序的条目按图书ID建立反向索引，收藏数变化时不必遍历全部条目。
+ */
+@Component
+public class BookQueryCache {
+
+    /** 默认排序（按更新时间）的排序类型标识 */
+    public static final String SORT_DEFAULT = "default";
+
+    /** 不超过该ID数的按收藏量排序条目建立反向索引；更大的条目数量少，逐个二分查找 */
+    private static final int INDEXED_MAX_IDS = 1024;
+
+    @Value("${bookstore.cache.query.max-size:1000}")
+    private long maxSize;
+
+    @Value("${bookstore.cache.query.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private Cache<Key, Entry> cache;
+
+    /** 失效次数，用于判断加载期间是否发生过失效 */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /** 收藏数变化次数，用于判断加载期间收藏数是否变化 */
+    private final AtomicLong favoriteCountChanges = new AtomicLong();
+
+    /** 图书ID -> 包含该图书的按收藏量排序条目（只含不超过 INDEXED_MAX_IDS 的条目） */
+    private final Map<Long, Set<Entry>> favoriteEntriesByBook = new ConcurrentHashMap<>();
+
+    /** 超过 INDEXED_MAX_IDS 的按收藏量排序条目 */
+    private final Set<Entry> largeFavoriteEntries = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                // 条目被淘汰、失效或替换后从反向索引中移除；索引按条目对象登记，同一 key 的新条目不受影响
+                .removalListener((Key key, Entry entry, RemovalCause cause) -> unregister(entry))
+                .build();
+    }
+
+    /**
+     * 查询词规范化：Unicode NFKC、去首尾空白、转小写
+     */
+    public static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        return Normalizer.normalize(query, Normalizer.Form.NFKC).trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 获取缓存的ID列表，未命中时调用 loader 加载并缓存
+     * @param normalizedQuery 规范化后的查询词
+     * @param sortType 排序类型：default、asc、desc
+     * @param loader 加载ID列表
+     * @param reorder 条目被标记需要重排时，对旧ID列表重新排序
+     */
+    public List<Long> get(String normalizedQuery, String sortType, Supplier<List<Long>> loader,
+                          Function<List<Long>, List<Long>> reorder) {
+        Key key = new Key(normalizedQuery, sortType);
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            // 在缓存的锁外加载，加载期间不占用 ConcurrentHashMap 的桶锁（虚拟线程下不会钉住载体线程）；
+            // 并发加载同一查询时保留先写入的结果
+            long invalidation = invalidations.get();
+            long favoriteCountChange = favoriteCountChanges.get();
+            Entry loaded = new Entry(key, List.copyOf(loader.get()));
+            if (invalidations.get() != invalidation) {
+                // 加载期间有图书被修改，结果可能已过时，只用于本次查询
+                return loaded.ids;
+            }
+            Entry existing = cache.asMap().putIfAbsent(key, loaded);
+            if (existing != null) {
+                entry = existing;
+            } else {
+                publish(loaded, invalidation, favoriteCountChange);
+                entry = loaded;
+            }
+        }
+        if (entry.orderDirty) {
+            long favoriteCountChange = favoriteCountChanges.get();
+            Entry reordered = new Entry(key, List.copyOf(reorder.apply(entry.ids)));
+            // 期间条目被失效或替换时不写回
+            if (cache.asMap().replace(key, entry, reordered)) {
+                publish(reordered, invalidations.get(), favoriteCountChange);
+            }
+            entry = reordered;
+        }
+        return entry.ids;
+    }
+
+    /**
+     * 图书的检索字段发生变化（新增、修改、删除）
+     * 失效包含该图书的条目，以及查询词能匹配图书当前字段的条目
+     * @param bookId 图书ID
+     * @param current 图书当前数据，已删除时为null
+     */
+    public void invalidateBook(Long bookId, Book current) {
+        invalidations.incrementAndGet();
+        Fields fields = current == null ? null : new Fields(current);
+        cache.asMap().entrySet().removeIf(e -> e.getValue().contains(bookId)
+                || (fields != null && e.getKey().matches(fields)));
+    }
+
+    /**
+     * 图书收藏数变化，包含该图书的按收藏量排序条目下次读取时重排
+     * @param bookId 图书ID
+     */
+    public void markFavoriteCountChanged(Long bookId) {
+        if (bookId == null) {
+            return;
+        }
+        // 先计数再查索引：查索引时尚未登记的条目，登记后会看到计数的变化
+        favoriteCountChanges.incrementAndGet();
+        Set<Entry> entries = favoriteEntriesByBook.get(bookId);
+        if (entries != null) {
+            for (Entry entry : entries) {
+                entry.orderDirty = true;
+            }
+        }
+        for (Entry entry : largeFavoriteEntries) {
+            if (entry.contains(bookId)) {
+                entry.orderDirty = true;
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * 底层缓存，用于注册监控指标
+     */
+    public Cache<?, ?> nativeCache() {
+        return cache;
+    }
+
+    /**
+     * 写入缓存后登记反向索引，再检查加载期间是否发生过失效或收藏数变化
+     * 与失效、标记的顺序相反（它们先计数再遍历），因此两边至少有一方能看到对方
+     */
+    private void publish(Entry entry, long invalidation, long favoriteCountChange) {
+        if (entry.favoriteSort()) {
+            register(entry);
+        }
+        if (invalidations.get() != invalidation) {
+            cache.asMap().remove(entry.key, entry);
+        } else if (entry.favoriteSort() && favoriteCountChanges.get() != favoriteCountChange) {
+            entry.orderDirty = true;
+        }
+    }
+
+    private void register(Entry entry) {
+        if (entry.sortedIds.length > INDEXED_MAX_IDS) {
+            largeFavoriteEntries.add(entry);
+            return;
+        }
+        for (long id : entry.sortedIds) {
+            favoriteEntriesByBook.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(entry);
+        }
+    }
+
+    private void unregister(Entry entry) {
+        if (entry == null || !entry.favoriteSort()) {
+            return;
+        }
+        if (entry.sortedIds.length > INDEXED_MAX_IDS) {
+            largeFavoriteEntries.remove(entry);
+            return;
+        }
+        for (long id : entry.sortedIds) {
+            favoriteEntriesByBook.computeIfPresent(id, (k, entries) -> {
+                entries.remove(entry);
+                return entries.isEmpty() ? null : entries;
+            });
+        }
+    }
+
+    private record Key(String query, String sortType) {
+
+        /**
+         * 查询词是否匹配图书当前字段，匹配范围与对应的查询一致：
+         * 默认排序匹配书名、作者、分类，按收藏量排序额外匹配描述
+         */
+        boolean matches(Fields fields) {
+            return contains(fields.name())
+                    || contains(fields.author())
+                    || contains(fields.category())
+                    || (!SORT_DEFAULT.equals(sortType) && contains(fields.description()));
+        }
+
+        private boolean contains(String field) {
+            return field != null && field.contains(query);
+        }
+    }
+
+    /**
+     * 图书参与匹配的字段，按查询词的方式规范化，每次失效只计算一次
+     */
+    private record Fields(String name, String author, String category, String description) {
+
+        Fields(Book book) {
+            this(normalizeField(book.getName()), normalizeField(book.getAuthor()),
+                    normalizeField(book.getCategory()), normalizeField(book.getDescription()));
+        }
+
+        private static String normalizeField(String field) {
+            return field == null ? null : normalize(field);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Key key;
+
+        private final List<Long> ids;
+
+        /** 排好序的ID副本，用于判断条目是否包含某本图书 */
+        private final long[] sortedIds;
+
+        private volatile boolean orderDirty;
+
+        private Entry(Key key, List<Long> ids) {
+            this.key = key;
+            this.ids = ids;
+            this.sortedIds = ids.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+
+        private boolean favoriteSort() {
+            return !SORT_DEFAULT.equals(key.sortType());
+        }
+
+        private boolean contains(Long bookId) {
+            return bookId != null && Arrays.binarySearch(sortedIds, bookId) >= 0;
+        }
+    }
+}
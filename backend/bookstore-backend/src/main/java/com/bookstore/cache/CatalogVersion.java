@@ -0,0 +1,40 @@
+package com.bookstore.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 图书目录版本号
+ * 图书新增、修改、删除以及收藏数写入数据库时递增，用于生成图书接口的 ETag 和 Last-Modified。
+ * ETag 带有启动时间，应用重启后旧的 ETag 不会误判为未修改。
+ * 使用弱 ETag：同一版本的响应可能按 gzip 压缩或不压缩，字节不同但内容等价，且 Tomcat 不压缩带强 ETag 的响应。
+ */
+@Component
+public class CatalogVersion {
+
+    private final String instanceId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile long lastModified = System.currentTimeMillis();
+
+    public void increment() {
+        version.incrementAndGet();
+        lastModified = System.currentTimeMillis();
+    }
+
+    /**
+     * 弱 ETag，形如 W/"启动标识-版本号"
+     */
+    public String etag() {
+        return "W/\"" + instanceId + "-" + version.get() + "\"";
+    }
+
+    /**
+     * 最近一次变化的时间（毫秒）；Last-Modified 只精确到秒，客户端应优先使用 ETag
+     */
+    public long lastModified() {
+        return lastModified;
+    }
+}
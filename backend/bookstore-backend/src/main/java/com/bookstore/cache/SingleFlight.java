@@ -0,0 +1,112 @@
+package com.bookstore.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 请求合并（single-flight）
+ * 同一个 key 同时只执行一次加载，并发到达的其他调用等待这次加载并共享结果，
+ * 缓存同时失效时热点查询只会打到数据库一次。
+ * 共享的结果对象会被多个请求同时使用，调用方不应修改。
+ */
+@Component
+public class SingleFlight {
+
+    /** 最多统计合并次数的 key 数量，超出后新 key 只计入总数 */
+    private static final int MAX_TRACKED_KEYS = 1000;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, LongAdder> coalescedByKey = new ConcurrentHashMap<>();
+
+    private final LongAdder coalescedTotal = new LongAdder();
+
+    private final LongAdder executedTotal = new LongAdder();
+
+    /**
+     * 执行加载，同一 key 已有加载在进行时等待其结果
+     * @param key 请求标识
+     * @param loader 实际的加载逻辑
+     * @return 加载结果，可能为null
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V execute(String key, Supplier<V> loader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            recordCoalesced(key);
+            try {
+                return (V) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        executedTotal.increment();
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 被合并（未实际执行加载）的调用总数
+     */
+    public long getCoalescedTotal() {
+        return coalescedTotal.sum();
+    }
+
+    /**
+     * 实际执行加载的次数
+     */
+    public long getExecutedTotal() {
+        return executedTotal.sum();
+    }
+
+    /**
+     * 合并次数最多的前 limit 个 key
+     */
+    public Map<String, Long> topCoalesced(int limit) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>();
+        coalescedByKey.forEach((key, count) -> entries.add(Map.entry(key, count.sum())));
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+
+        Map<String, Long> top = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries) {
+            if (top.size() >= limit) {
+                break;
+            }
+            top.put(entry.getKey(), entry.getValue());
+        }
+        return top;
+    }
+
+    private void recordCoalesced(String key) {
+        coalescedTotal.increment();
+        LongAdder counter = coalescedByKey.get(key);
+        if (counter == null && coalescedByKey.size() < MAX_TRACKED_KEYS) {
+            counter = coalescedByKey.computeIfAbsent(key, k -> new LongAdder());
+        }
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
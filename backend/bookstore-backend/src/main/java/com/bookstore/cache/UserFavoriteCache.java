@@ -0,0 +1,158 @@
+package com.bookstore.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * 用户收藏集合本地缓存
+ * 每个用户收藏的图书ID保存为有序 long[]，判断是否收藏只做一次二分查找，不装箱、不访问数据库。
+ * 数组只读，增删收藏时复制出新数组替换（copy-on-write），读线程无需加锁。
+ * 按数组占用的字节数限制总容量，超出后由 Caffeine 淘汰最近较少访问的用户。
+ * 从数据库加载在缓存的锁外进行；加载期间该用户的收藏有变化时不缓存加载结果，避免写入旧集合。
+ * 集合写入后按 TTL 过期，即使遗漏了某次维护，旧集合也只会保留有限时间。
+ */
+@Component
+public class UserFavoriteCache {
+
+    /** 数组对象头和长度字段的估算字节数 */
+    private static final int ARRAY_OVERHEAD = 16;
+
+    /** 修改版本号的分段数，按用户ID取模 */
+    private static final int VERSION_STRIPES = 1024;
+
+    @Value("${bookstore.cache.user-favorite.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${bookstore.cache.user-favorite.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    /** 按用户ID分段的修改版本号，用于判断加载期间收藏是否变化 */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private Cache<Long, long[]> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long userId, long[] ids) -> ARRAY_OVERHEAD + ids.length * Long.BYTES)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 判断用户是否已收藏，集合未加载时调用 loader 从数据库加载
+     * @param userId 用户ID
+     * @param bookId 图书ID
+     * @param loader 加载用户收藏的全部图书ID（无需有序）
+     */
+    public boolean contains(Long userId, long bookId, Function<Long, long[]> loader) {
+        return Arrays.binarySearch(get(userId, loader), bookId) >= 0;
+    }
+
+    /**
+     * 获取用户收藏的图书ID（有序），返回的数组不可修改
+     */
+    public long[] get(Long userId, Function<Long, long[]> loader) {
+        long[] ids = cache.getIfPresent(userId);
+        if (ids != null) {
+            return ids;
+        }
+        int stripe = stripe(userId);
+        long version = versions.get(stripe);
+        long[] loaded = sortedCopy(loader.apply(userId));
+        if (versions.get(stripe) != version) {
+            // 加载期间有增删，加载结果可能已过时，只用于本次判断
+            return loaded;
+        }
+        long[] existing = cache.asMap().putIfAbsent(userId, loaded);
+        return existing == null ? loaded : existing;
+    }
+
+    /**
+     * 集合已加载时加入图书，未加载时不处理，下次访问会从数据库加载
+     */
+    public void add(Long userId, long bookId) {
+        versions.incrementAndGet(stripe(userId));
+        cache.asMap().computeIfPresent(userId, (id, ids) -> {
+            int position = Arrays.binarySearch(ids, bookId);
+            if (position >= 0) {
+                return ids;
+            }
+            int insertAt = -position - 1;
+            long[] updated = new long[ids.length + 1];
+            System.arraycopy(ids, 0, updated, 0, insertAt);
+            updated[insertAt] = bookId;
+            System.arraycopy(ids, insertAt, updated, insertAt + 1, ids.length - insertAt);
+            return updated;
+        });
+    }
+
+    /**
+     * 集合已加载时移除图书
+     */
+    public void remove(Long userId, long bookId) {
+        versions.incrementAndGet(stripe(userId));
+        cache.asMap().computeIfPresent(userId, (id, ids) -> {
+            int position = Arrays.binarySearch(ids, bookId);
+            if (position < 0) {
+                return ids;
+            }
+            long[] updated = new long[ids.length - 1];
+            System.arraycopy(ids, 0, updated, 0, position);
+            System.arraycopy(ids, position + 1, updated, position, ids.length - position - 1);
+            return updated;
+        });
+    }
+
+    public void invalidate(Long userId) {
+        versions.incrementAndGet(stripe(userId));
+        cache.invalidate(userId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 当前缓存占用的估算字节数
+     */
+    public long weightedSize() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * 底层缓存，用于注册监控指标
+     */
+    public Cache<Long, long[]> nativeCache() {
+        return cache;
+    }
+
+    private static int stripe(Long userId) {
+        return (int) (userId & (VERSION_STRIPES - 1));
+    }
+
+    private static long[] sortedCopy(long[] ids) {
+        return Arrays.stream(ids).sorted().distinct().toArray();
+    }
+}
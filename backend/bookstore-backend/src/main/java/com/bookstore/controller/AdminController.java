@@ -0,0 +1,139 @@
+package com.bookstore.controller;
+
+import com.bookstore.cache.BookCache;
+import com.bookstore.cache.BookJsonCache;
+import com.bookstore.cache.BookQueryCache;
+import com.bookstore.cache.SingleFlight;
+import com.bookstore.cache.UserFavoriteCache;
+import com.bookstore.counter.FavoriteCountAggregator;
+import com.bookstore.dto.Result;
+import com.bookstore.metrics.SqlStatsInterceptor;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 运行状态查看接口
+ */
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    @Autowired
+    private FavoriteCountAggregator favoriteCountAggregator;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private BookQueryCache bookQueryCache;
+
+    @Autowired
+    private UserFavoriteCache userFavoriteCache;
+
+    @Autowired
+    private BookJsonCache bookJsonCache;
+
+    @Autowired
+    private SingleFlight singleFlight;
+
+    @Autowired
+    private SqlStatsInterceptor sqlStatsInterceptor;
+
+    /**
+     * 收藏数写回聚合器状态
+     */
+    @GetMapping("/favorite-counter")
+    public Result<Map<String, Object>> favoriteCounter() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("enabled", favoriteCountAggregator.isEnabled());
+        data.put("flushIntervalMs", favoriteCountAggregator.getFlushIntervalMs());
+        data.put("pendingBooks", favoriteCountAggregator.getPendingBooks());
+        data.put("pendingDelta", favoriteCountAggregator.getPendingDelta());
+        data.put("flushedRows", favoriteCountAggregator.getFlushedRows());
+        data.put("flushedBatches", favoriteCountAggregator.getFlushedBatches());
+        data.put("failedBatches", favoriteCountAggregator.getFailedBatches());
+        data.put("lastFlushTime", favoriteCountAggregator.getLastFlushTime());
+
+        return Result.success("获取成功", data);
+    }
+
+    /**
+     * 立即把待写回的收藏数写入数据库
+     */
+    @PostMapping("/favorite-counter/flush")
+    public Result<Integer> flushFavoriteCounter() {
+        int rows = favoriteCountAggregator.flush();
+
+        return Result.success("刷新成功", rows);
+    }
+
+    /**
+     * 缓存统计：图书详情缓存、查询结果缓存、用户收藏集合缓存、图书列表 JSON 片段缓存
+     */
+    @GetMapping("/cache")
+    public Result<Map<String, Object>> cache() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("book", cacheStats(bookCache.size(), bookCache.stats()));
+        data.put("query", cacheStats(bookQueryCache.size(), bookQueryCache.stats()));
+        Map<String, Object> userFavorite = cacheStats(userFavoriteCache.size(), userFavoriteCache.stats());
+        userFavorite.put("weightedBytes", userFavoriteCache.weightedSize());
+        data.put("userFavorite", userFavorite);
+        Map<String, Object> bookJson = cacheStats(bookJsonCache.size(), bookJsonCache.stats());
+        bookJson.put("weightedBytes", bookJsonCache.weightedSize());
+        data.put("bookJson", bookJson);
+
+        return Result.success("获取成功", data);
+    }
+
+    /**
+     * 请求合并统计，按合并次数倒序列出 key
+     */
+    @GetMapping("/single-flight")
+    public Result<Map<String, Object>> singleFlight(@RequestParam(defaultValue = "20") int limit) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("executed", singleFlight.getExecutedTotal());
+        data.put("coalesced", singleFlight.getCoalescedTotal());
+        data.put("topKeys", singleFlight.topCoalesced(limit));
+
+        return Result.success("获取成功", data);
+    }
+
+    /**
+     * SQL 语句执行统计，按指定指标倒序列出前 limit 条
+     * sortBy：total（总耗时）、max、avg、count、rows
+     */
+    @GetMapping("/sql-stats")
+    public Result<List<Map<String, Object>>> sqlStats(@RequestParam(defaultValue = "10") int limit,
+                                                       @RequestParam(defaultValue = "total") String sortBy) {
+        return Result.success("获取成功", sqlStatsInterceptor.top(limit, sortBy));
+    }
+
+    /**
+     * 清空 SQL 语句执行统计
+     */
+    @PostMapping("/sql-stats/reset")
+    public Result<Void> resetSqlStats() {
+        sqlStatsInterceptor.reset();
+
+        return Result.success("重置成功");
+    }
+
+    private static Map<String, Object> cacheStats(long size, CacheStats stats) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("size", size);
+        data.put("hitCount", stats.hitCount());
+        data.put("missCount", stats.missCount());
+        data.put("hitRate", stats.hitRate());
+        data.put("evictionCount", stats.evictionCount());
+        return data;
+    }
+}
@@ -1,5 +1,7 @@
 package com.bookstore.controller;
 
+import com.bookstore.dto.LoginResponse;
+import com.bookstore.dto.Result;
 import com.bookstore.entity.User;
 import com.bookstore.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,7 +10,6 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -23,49 +24,30 @@ public class AuthController {
      * 用户登录
      */
     @PostMapping("/login")
-    public Map<String, Object> login(@RequestBody Map<String, String> loginForm) {
+    public Result<LoginResponse> login(@RequestBody Map<String, String> loginForm) {
         String username = loginForm.get("username");
         String password = loginForm.get("password");
         
-        Map<String, Object> result = new HashMap<>();
-        
         User user = userService.login(username, password);
-        if (user != null) {
-            result.put("code", 200);
-            result.put("message", "登录成功");
-            
-            Map<String, Object> data = new HashMap<>();
-            // 生成令牌，实际项目中应使用JWT等技术
-            String token = "mock-token-" + UUID.randomUUID().toString().replaceAll("-", "");
-            data.put("token", token);
-            
-            Map<String, Object> userMap = new HashMap<>();
-            userMap.put("id", user.getId());
-            userMap.put("username", user.getUsername());
-            
-            data.put("user", userMap);
-            
-            result.put("data", data);
-        } else {
-            result.put("code", 400);
-            result.put("message", "用户名或密码错误");
+        if (user == null) {
+            return Result.error(400, "用户名或密码错误");
         }
         
-        return result;
+        // 生成令牌，实际项目中应使用JWT等技术
+        String token = "mock-token-" + UUID.randomUUID().toString().replaceAll("-", "");
+        LoginResponse data = new LoginResponse(token, new LoginResponse.UserInfo(user.getId(), user.getUsername()));
+        
+        return Result.success("登录成功", data);
     }
     
     /**
      * 用户注册
      */
     @PostMapping("/register")
-    public Map<String, Object> register(@RequestBody User user) {
-        Map<String, Object> result = new HashMap<>();
-        
+    public Result<User> register(@RequestBody User user) {
         // 检查用户名是否已存在
         if (userService.checkUsernameExists(user.getUsername())) {
-            result.put("code", 400);
-            result.put("message", "用户名已存在");
-            return result;
+            return Result.error(400, "用户名已存在");
         }
         
         // 设置默认状态为启用
@@ -73,29 +55,20 @@ public class AuthController {
         
         // 注册用户
         boolean success = userService.register(user);
-        if (success) {
-            result.put("code", 200);
-            result.put("message", "注册成功");
-            
-            // 隐藏密码
-            user.setPassword(null);
-            result.put("data", user);
-        } else {
-            result.put("code", 500);
-            result.put("message", "注册失败");
+        if (!success) {
+            return Result.error(500, "注册失败");
         }
         
-        return result;
+        // 隐藏密码
+        user.setPassword(null);
+        return Result.success("注册成功", user);
     }
     
     /**
      * 用户登出
      */
     @PostMapping("/logout")
-    public Map<String, Object> logout() {
-        Map<String, Object> result = new HashMap<>();
-        result.put("code", 200);
-        result.put("message", "登出成功");
-        return result;
+    public Result<Void> logout() {
+        return Result.success("登出成功");
     }
-} 
\ No newline at end of file
+}
@@ -1,13 +1,35 @@
 package com.bookstore.controller;
 
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.bookstore.bulk.BookDataFormat;
+import com.bookstore.bulk.BookImportJob;
+import com.bookstore.bulk.BookImporter;
+import com.bookstore.cache.BookJsonCache;
+import com.bookstore.cache.CatalogVersion;
+import com.bookstore.dto.BookFacets;
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.JsonFragment;
+import com.bookstore.dto.PageResult;
+import com.bookstore.dto.Result;
+import com.bookstore.dto.Suggestion;
 import com.bookstore.entity.Book;
 import com.bookstore.service.BookService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/books")
@@ -16,138 +38,288 @@ public class BookController {
     @Autowired
     private BookService bookService;
     
+    @Autowired
+    private BookJsonCache bookJsonCache;
+    
+    @Autowired
+    private CatalogVersion catalogVersion;
+    
+    @Autowired
+    private BookListStreamer bookListStreamer;
+    
+    @Autowired
+    private BookImporter bookImporter;
+    
     /**
-     * 获取图书列表
+     * 分页获取图书列表
+     * 带cursor按游标分页，否则按page页码分页；列表中的图书不含描述；目录未变化时返回304
      */
-    @GetMapping
-    public Map<String, Object> list(
-            @RequestParam(required = false) String query) {
+    @GetMapping(params = "size")
+    public Result<Object> list(
+            @RequestParam(required = false) String query,
+            @RequestParam(defaultValue = "1") long page,
+            @RequestParam int size,
+            @RequestParam(required = false) String cursor,
+            ServletWebRequest request) {
         
-        List<Book> books = bookService.listAllBooks(query);
+        if (notModified(request)) {
+            return null;
+        }
+        
+        Object data;
+        try {
+            if (cursor != null) {
+                data = cursorData(bookService.listBooksAfter(query, cursor, size));
+            } else {
+                data = pageData(bookService.pageBooks(query, page, size));
+            }
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        }
+        
+        return Result.success("获取成功", data);
+    }
+    
+    /**
+     * 获取全部图书（不传size），流式输出
+     * 无查询条件时边读数据库游标边输出；有查询条件时结果数量受检索命中数限制，查询完成后输出
+     */
+    @GetMapping(params = "!size")
+    public ResponseEntity<StreamingResponseBody> listAll(
+            @RequestParam(required = false) String query,
+            ServletWebRequest request) {
+        
+        if (notModified(request)) {
+            return null;
+        }
         
-        Map<String, Object> result = new HashMap<>();
-        result.put("code", 200);
-        result.put("message", "获取成功");
+        if (!StringUtils.hasText(query)) {
+            return bookListStreamer.stream(bookService::streamAllBooks);
+        }
+        List<Book> books = bookService.listAllBooks(query);
+        return bookListStreamer.stream(books::forEach);
+    }
+    
+    /**
+     * 导出图书（含描述），按ID升序边读数据库游标边输出，可直接用于批量导入
+     * format 为 ndjson（默认）或 csv；传 updatedSince 时只导出更新时间不早于该时间的图书，用于增量导出，
+     * 已删除的图书不会出现在导出结果中。收藏数变化不更新 update_time，增量导出不含收藏数
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime updatedSince) {
         
-        Map<String, Object> data = new HashMap<>();
-        data.put("list", books);
-        result.put("data", data);
+        BookDataFormat dataFormat;
+        try {
+            dataFormat = BookDataFormat.ofName(format);
+        } catch (IllegalArgumentException e) {
+            return bookListStreamer.error(400, e.getMessage());
+        }
+        return bookListStreamer.export(dataFormat, consumer -> bookService.exportBooks(updatedSince, consumer));
+    }
+    
+    /**
+     * 搜索框输入提示，按前缀匹配书名、作者、分类，按收藏量排序
+     */
+    @GetMapping("/suggest")
+    public Result<List<Suggestion>> suggest(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return Result.success("获取成功", bookService.suggest(prefix, limit));
+    }
+    
+    /**
+     * 当前查询结果的分类和价格区间分布，目录未变化时返回304
+     */
+    @GetMapping("/facets")
+    public Result<BookFacets> facets(
+            @RequestParam(required = false) String query,
+            ServletWebRequest request) {
         
-        return result;
+        if (notModified(request)) {
+            return null;
+        }
+        return Result.success("获取成功", bookService.facets(query));
     }
     
     /**
-     * 获取图书详情
+     * 获取图书详情，目录未变化时返回304
      */
     @GetMapping("/{id}")
-    public Map<String, Object> detail(@PathVariable Long id) {
+    public Result<Book> detail(@PathVariable Long id, ServletWebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        
         Book book = bookService.getBookDetail(id);
         
-        Map<String, Object> result = new HashMap<>();
-        if (book != null) {
-            result.put("code", 200);
-            result.put("message", "获取成功");
-            result.put("data", book);
-        } else {
-            result.put("code", 404);
-            result.put("message", "图书不存在");
+        if (book == null) {
+            return Result.error(404, "图书不存在");
         }
-        
-        return result;
+        return Result.success("获取成功", book);
     }
     
     /**
      * 添加图书
      */
     @PostMapping
-    public Map<String, Object> add(@RequestBody Book book) {
+    public Result<Book> add(@RequestBody Book book) {
         boolean success = bookService.save(book);
         
-        Map<String, Object> result = new HashMap<>();
-        if (success) {
-            result.put("code", 200);
-            result.put("message", "添加成功");
-            result.put("data", book);
-        } else {
-            result.put("code", 500);
-            result.put("message", "添加失败");
+        if (!success) {
+            return Result.error(500, "添加失败");
+        }
+        return Result.success("添加成功", book);
+    }
+    
+    /**
+     * 批量导入图书，请求体为 CSV（text/csv，首行为列名）或 NDJSON（application/x-ndjson），UTF-8 编码
+     * 边读边校验和写入，读完后返回导入结果和出错的行；同一时间只允许一个导入任务
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public Result<BookImportJob> importBooks(HttpServletRequest request) throws IOException {
+        BookImportJob job;
+        try {
+            job = bookImporter.importBooks(
+                    new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8),
+                    BookDataFormat.ofContentType(request.getContentType()));
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            return Result.error(409, e.getMessage());
+        }
+        
+        if (job.getStatus() == BookImportJob.Status.FAILED) {
+            return new Result<>(500, "导入中断", job);
         }
+        return Result.success("导入完成", job);
+    }
+    
+    /**
+     * 最近的导入任务及进度，最新的在前
+     */
+    @GetMapping("/import")
+    public Result<List<BookImportJob>> importJobs() {
+        return Result.success("获取成功", bookImporter.recentJobs());
+    }
+    
+    /**
+     * 导入任务的进度
+     */
+    @GetMapping("/import/{id}")
+    public Result<BookImportJob> importJob(@PathVariable String id) {
+        BookImportJob job = bookImporter.getJob(id);
         
-        return result;
+        if (job == null) {
+            return Result.error(404, "导入任务不存在");
+        }
+        return Result.success("获取成功", job);
     }
     
     /**
      * 更新图书
      */
     @PutMapping("/{id}")
-    public Map<String, Object> update(@PathVariable Long id, @RequestBody Book book) {
+    public Result<Book> update(@PathVariable Long id, @RequestBody Book book) {
         book.setId(id);
-        boolean exists = bookService.getById(id) != null;
+        boolean exists = bookService.getBookDetail(id) != null;
         
-        Map<String, Object> result = new HashMap<>();
         if (!exists) {
-            result.put("code", 404);
-            result.put("message", "图书不存在");
-            return result;
+            return Result.error(404, "图书不存在");
         }
         
         boolean success = bookService.updateById(book);
-        if (success) {
-            result.put("code", 200);
-            result.put("message", "更新成功");
-            result.put("data", book);
-        } else {
-            result.put("code", 500);
-            result.put("message", "更新失败");
+        if (!success) {
+            return Result.error(500, "更新失败");
         }
-        
-        return result;
+        return Result.success("更新成功", book);
     }
     
     /**
      * 删除图书
      */
     @DeleteMapping("/{id}")
-    public Map<String, Object> delete(@PathVariable Long id) {
-        boolean exists = bookService.getById(id) != null;
+    public Result<Void> delete(@PathVariable Long id) {
+        boolean exists = bookService.getBookDetail(id) != null;
         
-        Map<String, Object> result = new HashMap<>();
         if (!exists) {
-            result.put("code", 404);
-            result.put("message", "图书不存在");
-            return result;
+            return Result.error(404, "图书不存在");
         }
         
         boolean success = bookService.removeById(id);
-        if (success) {
-            result.put("code", 200);
-            result.put("message", "删除成功");
-        } else {
-            result.put("code", 500);
-            result.put("message", "删除失败");
+        if (!success) {
+            return Result.error(500, "删除失败");
         }
-        
-        return result;
+        return Result.success("删除成功");
     }
 
     /**
-     * 获取图书列表（支持按收藏量排序）
+     * 按收藏量排序分页获取图书列表，目录未变化时返回304
      */
-    @GetMapping("/favorite-sort")
-    public Map<String, Object> listByFavoriteCount(
+    @GetMapping(value = "/favorite-sort", params = "size")
+    public Result<Object> listByFavoriteCount(
             @RequestParam(required = false) String query,
-            @RequestParam(defaultValue = "desc") String sortType) {
+            @RequestParam(defaultValue = "desc") String sortType,
+            @RequestParam(defaultValue = "1") long page,
+            @RequestParam int size,
+            @RequestParam(required = false) String cursor,
+            ServletWebRequest request) {
         
-        List<Book> books = bookService.listAllBooksAndSortByFavoriteCount(query, sortType);
+        if (notModified(request)) {
+            return null;
+        }
+        
+        Object data;
+        try {
+            if (cursor != null) {
+                data = cursorData(bookService.listBooksByFavoriteCountAfter(query, sortType, cursor, size));
+            } else {
+                data = pageData(bookService.pageBooksByFavoriteCount(query, sortType, page, size));
+            }
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        }
         
-        Map<String, Object> result = new HashMap<>();
-        result.put("code", 200);
-        result.put("message", "获取成功");
+        return Result.success("获取成功", data);
+    }
+    
+    /**
+     * 按收藏量排序获取全部图书（不传size），流式输出，规则同 {@link #listAll}
+     */
+    @GetMapping(value = "/favorite-sort", params = "!size")
+    public ResponseEntity<StreamingResponseBody> listAllByFavoriteCount(
+            @RequestParam(required = false) String query,
+            @RequestParam(defaultValue = "desc") String sortType,
+            ServletWebRequest request) {
         
-        Map<String, Object> data = new HashMap<>();
-        data.put("list", books);
-        result.put("data", data);
+        if (notModified(request)) {
+            return null;
+        }
         
-        return result;
+        if (!StringUtils.hasText(query)) {
+            return bookListStreamer.stream(consumer -> bookService.streamBooksByFavoriteCount(sortType, consumer));
+        }
+        List<Book> books = bookService.listAllBooksAndSortByFavoriteCount(query, sortType);
+        return bookListStreamer.stream(books::forEach);
+    }
+    
+    /**
+     * 按目录版本号校验条件请求，写入 ETag 和 Last-Modified；未变化时响应已设为304，调用方直接返回null。
+     * 版本号在查询前读取，查询期间发生的修改会使下一次请求的 ETag 不匹配，不会把新数据当作未修改。
+     * no-cache 要求浏览器每次都向服务端确认，不按 Last-Modified 自行推算缓存时间
+     */
+    private boolean notModified(ServletWebRequest request) {
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        return request.checkNotModified(catalogVersion.etag(), catalogVersion.lastModified());
+    }
+    
+    private PageResult<JsonFragment> pageData(IPage<Book> books) {
+        return PageResult.of(books, bookJsonCache.toJson(books.getRecords()));
+    }
+    
+    private CursorPage<JsonFragment> cursorData(CursorPage<Book> books) {
+        return new CursorPage<>(bookJsonCache.toJson(books.getList()), books.getNextCursor());
     }
-} 
\ No newline at end of file
+}
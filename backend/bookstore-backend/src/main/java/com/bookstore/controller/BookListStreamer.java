@@ -0,0 +1,106 @@
+package com.bookstore.controller;
+
+import com.bookstore.bulk.BookDataFormat;
+import com.bookstore.bulk.BookExportWriter;
+import com.bookstore.cache.BookJsonCache;
+import com.bookstore.dto.Result;
+import com.bookstore.entity.Book;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * 图书列表的流式输出
+ * 边读边写 {"code":200,"message":"获取成功","data":{"list":[...]}}，格式与不分页的列表响应一致，
+ * 每本图书写入 {@link BookJsonCache} 中的 JSON 片段，内存占用与列表长度无关。
+ * 响应体在异步线程中写出，数据源通常是数据库游标，写出期间占用一个数据库连接；
+ * 开始输出后出错只能中断连接，客户端收到的是不完整的 JSON。
+ */
+@Component
+public class BookListStreamer {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookJsonCache bookJsonCache;
+
+    /**
+     * @param source 把每本图书依次交给传入的 Consumer
+     */
+    public ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<Book>> source) {
+        StreamingResponseBody body = out -> {
+            // 输出流由 Spring 负责关闭
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                gen.writeStartObject();
+                gen.writeNumberField("code", 200);
+                gen.writeStringField("message", "获取成功");
+                gen.writeObjectFieldStart("data");
+                gen.writeArrayFieldStart("list");
+                source.accept(book -> {
+                    try {
+                        gen.writeObject(bookJsonCache.toJson(book));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                gen.writeEndArray();
+                gen.writeEndObject();
+                gen.writeEndObject();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * 输出统一响应结构的错误，用于流式接口在开始输出前发现的参数错误
+     */
+    public ResponseEntity<StreamingResponseBody> error(int code, String message) {
+        Result<Void> result = Result.error(code, message);
+        StreamingResponseBody body = out -> objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValue(out, result);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * 以导出文件的形式输出，每本图书一行，不包在统一响应结构中
+     * @param source 把每本图书依次交给传入的 Consumer
+     */
+    public ResponseEntity<StreamingResponseBody> export(BookDataFormat format, Consumer<Consumer<Book>> source) {
+        StreamingResponseBody body = out -> {
+            BookExportWriter writer = new BookExportWriter(out, format, objectMapper);
+            try {
+                source.accept(book -> {
+                    try {
+                        writer.write(book);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.parseMediaType(format.contentType()), StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("books." + format.extension()).build().toString())
+                .body(body);
+    }
+}
@@ -1,12 +1,17 @@
 package com.bookstore.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.bookstore.cache.BookJsonCache;
+import com.bookstore.dto.JsonFragment;
+import com.bookstore.dto.PageResult;
+import com.bookstore.dto.Result;
 import com.bookstore.entity.Book;
 import com.bookstore.service.FavoriteService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,106 +22,117 @@ public class FavoriteController {
     @Autowired
     private FavoriteService favoriteService;
     
+    @Autowired
+    private BookJsonCache bookJsonCache;
+    
+    @Autowired
+    private BookListStreamer bookListStreamer;
+    
     // 使用固定用户ID 1
     private static final Long FIXED_USER_ID = 1L;
     
+    /** 批量查询收藏状态单次最多图书数 */
+    private static final int MAX_CHECK_SIZE = 500;
+    
     /**
-     * 获取用户收藏列表
+     * 分页获取用户收藏列表，列表中的图书不含描述
      */
-    @GetMapping
-    public Map<String, Object> list() {
+    @GetMapping(params = "size")
+    public Result<PageResult<JsonFragment>> list(
+            @RequestParam(defaultValue = "1") long page,
+            @RequestParam int size) {
         // 使用固定用户ID
         Long userId = FIXED_USER_ID;
         
-        List<Book> favorites = favoriteService.getAllUserFavorites(userId);
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("code", 200);
-        result.put("message", "获取成功");
+        IPage<Book> favorites = favoriteService.pageUserFavorites(userId, page, size);
+        PageResult<JsonFragment> data = PageResult.of(favorites, bookJsonCache.toJson(favorites.getRecords()));
         
-        Map<String, Object> data = new HashMap<>();
-        data.put("list", favorites);
-        result.put("data", data);
+        return Result.success("获取成功", data);
+    }
+    
+    /**
+     * 获取用户全部收藏（不传size），边读数据库游标边输出
+     */
+    @GetMapping(params = "!size")
+    public ResponseEntity<StreamingResponseBody> listAll() {
+        // 使用固定用户ID
+        Long userId = FIXED_USER_ID;
         
-        return result;
+        return bookListStreamer.stream(consumer -> favoriteService.streamUserFavorites(userId, consumer));
     }
     
     /**
      * 添加收藏
      */
     @PostMapping
-    public Map<String, Object> add(@RequestBody Map<String, Long> params) {
+    public Result<Void> add(@RequestBody Map<String, Long> params) {
         Long bookId = params.get("bookId");
         // 使用固定用户ID
         Long userId = FIXED_USER_ID;
         
-        Map<String, Object> result = new HashMap<>();
-        
         // 检查是否已收藏
         if (favoriteService.isFavorite(userId, bookId)) {
-            result.put("code", 400);
-            result.put("message", "已收藏该图书");
-            return result;
+            return Result.error(400, "已收藏该图书");
         }
         
         boolean success = favoriteService.addFavorite(userId, bookId);
         
-        if (success) {
-            result.put("code", 200);
-            result.put("message", "收藏成功");
-        } else {
-            result.put("code", 500);
-            result.put("message", "收藏失败");
+        if (!success) {
+            return Result.error(500, "收藏失败");
         }
-        
-        return result;
+        return Result.success("收藏成功");
     }
     
     /**
      * 取消收藏
      */
     @DeleteMapping("/{bookId}")
-    public Map<String, Object> delete(@PathVariable Long bookId) {
+    public Result<Void> delete(@PathVariable Long bookId) {
         // 使用固定用户ID
         Long userId = FIXED_USER_ID;
         
-        Map<String, Object> result = new HashMap<>();
-        
         // 检查是否已收藏
         if (!favoriteService.isFavorite(userId, bookId)) {
-            result.put("code", 400);
-            result.put("message", "未收藏该图书");
-            return result;
+            return Result.error(400, "未收藏该图书");
         }
         
         boolean success = favoriteService.removeFavorite(userId, bookId);
         
-        if (success) {
-            result.put("code", 200);
-            result.put("message", "取消收藏成功");
-        } else {
-            result.put("code", 500);
-            result.put("message", "取消收藏失败");
+        if (!success) {
+            return Result.error(500, "取消收藏失败");
         }
-        
-        return result;
+        return Result.success("取消收藏成功");
     }
     
     /**
      * 检查是否已收藏
      */
     @GetMapping("/check/{bookId}")
-    public Map<String, Object> check(@PathVariable Long bookId) {
+    public Result<Boolean> check(@PathVariable Long bookId) {
         // 使用固定用户ID
         Long userId = FIXED_USER_ID;
         
         boolean isFavorite = favoriteService.isFavorite(userId, bookId);
         
-        Map<String, Object> result = new HashMap<>();
-        result.put("code", 200);
-        result.put("message", "查询成功");
-        result.put("data", isFavorite);
+        return Result.success("查询成功", isFavorite);
+    }
+    
+    /**
+     * 批量检查是否已收藏
+     * 请求体为 {"bookIds": [...]}，返回其中已收藏的图书ID
+     */
+    @PostMapping("/check")
+    public Result<List<Long>> checkBatch(@RequestBody Map<String, List<Long>> params) {
+        List<Long> bookIds = params.get("bookIds");
+        // 使用固定用户ID
+        Long userId = FIXED_USER_ID;
+        
+        if (bookIds != null && bookIds.size() > MAX_CHECK_SIZE) {
+            return Result.error(400, "单次最多查询" + MAX_CHECK_SIZE + "本图书");
+        }
+        
+        List<Long> favoriteIds = favoriteService.filterFavorites(userId, bookIds);
         
-        return result;
+        return Result.success("查询成功", favoriteIds);
     }
-} 
\ No newline at end of file
+}
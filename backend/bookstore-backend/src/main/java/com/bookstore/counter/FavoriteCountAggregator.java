@@ -0,0 +1,328 @@
+package com.bookstore.counter;
+
+import com.bookstore.cache.BookCache;
+import com.bookstore.cache.BookQueryCache;
+import com.bookstore.cache.CatalogVersion;
+import com.bookstore.entity.Book;
+import com.bookstore.mapper.BookMapper;
+import com.bookstore.search.BookFacetIndex;
+import com.bookstore.search.BookSuggestIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图书收藏数写回聚合器（write-behind）
+ * 开启后收藏数的增减先累加到按图书划分的 LongAdder 中，
+ * 由后台线程按固定间隔合并为批量 UPDATE 写入 book.favorite_count，应用关闭时再写一次。
+ * 热门图书被集中收藏时不再每次都争抢同一行的行锁，代价是数据库中的收藏数最多滞后一个刷新间隔。
+ * 一个刷新间隔内没有变化的图书在刷新时移除其累加器，待写回的图书数不随被收藏过的图书总数增长。
+ * 收藏时按数据库中的收藏数加上尚未写回的变化校验上限，与同步模式一样达到上限时拒绝。
+ */
+@Slf4j
+@Component
+public class FavoriteCountAggregator {
+
+    /** 单本图书收藏量上限，与同步模式一致 */
+    private static final int MAX_FAVORITE_COUNT = 1000;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private BookQueryCache bookQueryCache;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private FavoriteLeaderboard favoriteLeaderboard;
+
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+
+    @Autowired
+    private BookFacetIndex bookFacetIndex;
+
+    @Value("${bookstore.favorite-count.write-behind.enabled:false}")
+    private boolean enabled;
+
+    /** 刷新间隔，即允许丢失的最长时间窗口 */
+    @Value("${bookstore.favorite-count.write-behind.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    /** 单条批量 UPDATE 最多包含的图书数 */
+    @Value("${bookstore.favorite-count.write-behind.batch-size:500}")
+    private int batchSize;
+
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    /** 已通过上限校验、所在事务尚未结束的收藏数 */
+    private final Map<Long, Long> reserved = new ConcurrentHashMap<>();
+
+    /** 刷新持有写锁，上限校验持有读锁，校验读到的数据库收藏数与待写回的变化不会因写回重复或遗漏 */
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private final AtomicLong flushedRows = new AtomicLong();
+
+    private final AtomicLong flushedBatches = new AtomicLong();
+
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    private volatile long lastFlushTime;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "favorite-count-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("收藏数写回模式已开启，刷新间隔{}ms", flushIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(flushIntervalMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 累加收藏数变化
+     * 处于事务中时在提交后才计入，事务回滚则丢弃
+     * @param bookId 图书ID
+     * @param delta 变化量，收藏为1，取消收藏为-1
+     */
+    public void add(Long bookId, long delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accumulate(bookId, delta);
+                }
+            });
+        } else {
+            accumulate(bookId, delta);
+        }
+    }
+
+    /**
+     * 收藏数加1，已知收藏数达到上限时拒绝
+     * 已知收藏数为数据库中的值加上尚未写回的变化和其他事务已通过校验的收藏；同一本图书的校验与计入串行执行，
+     * 并发收藏不会一起越过上限。处于事务中时在提交后才计入，事务回滚则释放
+     * @param bookId 图书ID
+     * @return 图书不存在或达到上限时返回false
+     */
+    public boolean tryIncrement(Long bookId) {
+        flushLock.readLock().lock();
+        try {
+            List<Book> rows = bookMapper.selectFavoriteCounts(List.of(bookId));
+            if (rows.isEmpty()) {
+                return false;
+            }
+            Integer favoriteCount = rows.get(0).getFavoriteCount();
+            long stored = favoriteCount == null ? 0 : favoriteCount;
+            boolean[] accepted = new boolean[1];
+            reserved.compute(bookId, (id, count) -> {
+                long inFlight = count == null ? 0 : count;
+                if (stored + pendingDelta(id) + inFlight >= MAX_FAVORITE_COUNT) {
+                    return count;
+                }
+                accepted[0] = true;
+                return inFlight + 1;
+            });
+            if (!accepted[0]) {
+                return false;
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(bookId, status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            release(bookId, true);
+        }
+        return true;
+    }
+
+    /**
+     * 图书尚未写回的变化量
+     */
+    public long pendingDelta(Long bookId) {
+        LongAdder adder = pending.get(bookId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * 将所有待写回的变化批量写入数据库
+     * @return 本次写入的图书数
+     */
+    public int flush() {
+        flushLock.writeLock().lock();
+        try {
+            int rows = 0;
+            Map<Long, Long> batch = new LinkedHashMap<>();
+            for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+                long delta = entry.getValue().sumThenReset();
+                if (delta == 0) {
+                    // 上次刷新后没有变化，移除累加器；移除后才到达的变化由 accumulate 重新计入
+                    pending.computeIfPresent(entry.getKey(), (id, adder) -> adder.sum() == 0 ? null : adder);
+                    continue;
+                }
+                batch.put(entry.getKey(), delta);
+                if (batch.size() >= batchSize) {
+                    rows += writeBatch(batch);
+                    batch = new LinkedHashMap<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                rows += writeBatch(batch);
+            }
+            lastFlushTime = System.currentTimeMillis();
+            return rows;
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 尚未写回的图书数
+     */
+    public int getPendingBooks() {
+        int count = 0;
+        for (LongAdder adder : pending.values()) {
+            if (adder.sum() != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 尚未写回的变化量绝对值之和
+     */
+    public long getPendingDelta() {
+        long total = 0;
+        for (LongAdder adder : pending.values()) {
+            total += Math.abs(adder.sum());
+        }
+        return total;
+    }
+
+    public long getFlushedRows() {
+        return flushedRows.get();
+    }
+
+    public long getFlushedBatches() {
+        return flushedBatches.get();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.get();
+    }
+
+    public long getLastFlushTime() {
+        return lastFlushTime;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    private void accumulate(Long bookId, long delta) {
+        while (true) {
+            LongAdder adder = pending.computeIfAbsent(bookId, k -> new LongAdder());
+            adder.add(delta);
+            if (pending.get(bookId) == adder) {
+                return;
+            }
+            // 累加器在累加前后被刷新移除，已移除的累加器不会再被读取，重新计入
+        }
+    }
+
+    /**
+     * 释放通过校验的收藏，提交时计入待写回的变化；两步在同一次 compute 中完成，校验不会漏算
+     */
+    private void release(Long bookId, boolean committed) {
+        reserved.compute(bookId, (id, count) -> {
+            if (committed) {
+                accumulate(id, 1);
+            }
+            return count == null || count <= 1 ? null : count - 1;
+        });
+    }
+
+    private int writeBatch(Map<Long, Long> batch) {
+        try {
+            int rows = bookMapper.batchAddFavoriteCount(batch, MAX_FAVORITE_COUNT);
+            for (Long bookId : batch.keySet()) {
+                bookCache.invalidate(bookId);
+                bookQueryCache.markFavoriteCountChanged(bookId);
+                // 批量更新按上限截断，排行无法按变化量推算，重新读取
+                favoriteLeaderboard.markStale(bookId);
+                bookSuggestIndex.markStale(bookId);
+                bookFacetIndex.markStale(bookId);
+            }
+            catalogVersion.increment();
+            flushedRows.addAndGet(rows);
+            flushedBatches.incrementAndGet();
+            return rows;
+        } catch (RuntimeException e) {
+            // 写入失败时把变化量放回，等待下一次刷新
+            failedBatches.incrementAndGet();
+            batch.forEach(this::accumulate);
+            log.error("收藏数批量写回失败，{}本图书的变化将在下次刷新时重试", batch.size(), e);
+            return 0;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("收藏数刷新失败", e);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.bookstore.counter;
+
+import com.bookstore.entity.Book;
+import com.bookstore.mapper.BookMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 全部图书的收藏量排行
+ * 以 (收藏量, 图书ID) 为键保存在带排名的有序树中，排序规则与 SQL 一致：收藏量为空视为0，相同收藏量按ID升序。
+ * 收藏数增减、图书增删改时增量维护，单次 O(log n)；按排名取一段（分页、top-K）为 O(log n + 条数)，
+ * 降序时先按收藏量定位到对应的分组。排行在第一次使用时从数据库全量加载。
+ * 无法确定增量是否已计入时（事务回滚、非事务调用、写回批次、事务进行中发生了全量加载）
+ * 只标记图书失效，下一次读取前从数据库重新加载该图书。
+ */
+@Component
+public class FavoriteLeaderboard {
+
+    /** 键中图书ID占用的位数 */
+    private static final int ID_BITS = 40;
+
+    private static final long MAX_ID = (1L << ID_BITS) - 1;
+
+    /** 键中收藏量的上限，超出的值按上限排序；保留一位余量，count + 1 仍不溢出 */
+    private static final int MAX_COUNT = (1 << (63 - ID_BITS)) - 2;
+
+    /** 重新加载失效图书时每批的数量 */
+    private static final int RELOAD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final RankTree tree = new RankTree();
+
+    /** 图书ID -> 排行中的收藏量 */
+    private final Map<Long, Integer> counts = new HashMap<>();
+
+    /** 需要从数据库重新加载的图书ID */
+    private final Set<Long> staleIds = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean built = false;
+
+    /** 正在全量加载，加载期间提交的修改可能没有被读到 */
+    private volatile boolean building = false;
+
+    /** 全量加载的次数，用于判断事务进行期间是否发生过全量加载 */
+    private volatile long epoch;
+
+    /**
+     * 按排名取一段图书ID
+     * @param asc 是否按收藏量升序
+     * @param offset 起始排名，从0开始
+     * @param limit 最多返回条数
+     */
+    public List<Long> range(boolean asc, long offset, int limit) {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>(Math.max(0, Math.min(limit, tree.size())));
+            if (offset < 0 || offset >= tree.size() || limit <= 0) {
+                return ids;
+            }
+            if (asc) {
+                tree.forEach((int) offset, limit, key -> ids.add(idOf(key)));
+            } else {
+                collectDesc((int) offset, limit, ids);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 排在给定排序键 (收藏量, 图书ID) 之后的第一个位置，用于游标分页
+     */
+    public long positionAfter(boolean asc, int favoriteCount, long bookId) {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            int count = clampCount(favoriteCount);
+            long id = Math.min(Math.max(bookId, 0), MAX_ID - 1);
+            int upToCursor = tree.rank(key(count, id + 1));
+            if (asc) {
+                return upToCursor;
+            }
+            // 降序：收藏量更大的全部图书，加上同一收藏量中ID不大于游标的图书
+            return greaterThan(count) + (upToCursor - tree.rank(key(count, 0)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 图书总数
+     */
+    public int size() {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            return tree.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 累加收藏数变化量，结果不低于0
+     * 在事务内修改数据库之后、提交之前调用：全量加载读不到未提交的修改，因此不会重复计入。
+     * 事务结束后需调用 {@link #afterCompletion}
+     * @return 计入时的加载批次，未计入（尚未加载）时为 -1
+     */
+    public long add(Long bookId, int delta) {
+        if (bookId == null || !built) {
+            return -1;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer current = counts.get(bookId);
+            if (current != null) {
+                set(bookId, Math.max(current + delta, 0));
+            }
+            return epoch;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 事务结束后确认 {@link #add} 的结果
+     * 事务回滚、变化量未计入，或期间重新全量加载过（加载可能已读到提交后的值）时，标记该图书失效
+     * @param bookId 图书ID
+     * @param addedEpoch add 的返回值
+     * @param committed 事务是否已提交
+     */
+    public void afterCompletion(Long bookId, long addedEpoch, boolean committed) {
+        if (!committed || addedEpoch < 0 || addedEpoch != epoch) {
+            markStale(bookId);
+        }
+    }
+
+    /**
+     * 用调用方已加载的图书数据更新排行
+     * @param bookId 图书ID
+     * @param current 图书当前数据，已删除时为null
+     */
+    public void refresh(Long bookId, Book current) {
+        if (bookId == null) {
+            return;
+        }
+        if (!built) {
+            markStale(bookId);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (current == null) {
+                remove(bookId);
+            } else {
+                set(bookId, current.getFavoriteCount() == null ? 0 : current.getFavoriteCount());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 标记图书在排行中的收藏量已失效，下一次读取前从数据库重新加载
+     * 尚未加载时只在全量加载进行中记录：进行中的加载可能没有读到该图书的最新值，之后开始的加载能读到。
+     * 先读 building 再读 built：加载完成时先置 built 再清 building，两者不会同时读到 false
+     */
+    public void markStale(Long bookId) {
+        if (bookId != null && (building || built)) {
+            staleIds.add(bookId);
+        }
+    }
+
+    /**
+     * 清空排行，下一次读取时重新全量加载
+     */
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            tree.clear();
+            counts.clear();
+            staleIds.clear();
+            built = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureFresh() {
+        if (built && staleIds.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                epoch++;
+                building = true;
+                try {
+                    // 只查询ID和收藏数，逐行处理，不保存完整的图书列表；
+                    // 失效标记不清空，加载期间提交的修改在加载完成后重新读取
+                    bookMapper.scanFavoriteCounts(context -> {
+                        Book book = context.getResultObject();
+                        set(book.getId(), book.getFavoriteCount() == null ? 0 : book.getFavoriteCount());
+                    });
+                    built = true;
+                } finally {
+                    building = false;
+                }
+            }
+            if (!staleIds.isEmpty()) {
+                List<Long> ids = new ArrayList<>(staleIds);
+                staleIds.removeAll(ids);
+                reload(ids);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reload(List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += RELOAD_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + RELOAD_BATCH_SIZE, ids.size()));
+            Map<Long, Integer> loaded = new HashMap<>(batch.size() * 2);
+            for (Book book : bookMapper.selectFavoriteCounts(batch)) {
+                loaded.put(book.getId(), book.getFavoriteCount() == null ? 0 : book.getFavoriteCount());
+            }
+            for (Long id : batch) {
+                Integer count = loaded.get(id);
+                if (count == null) {
+                    remove(id);
+                } else {
+                    set(id, count);
+                }
+            }
+        }
+    }
+
+    /**
+     * 降序：从收藏量最大的分组开始，分组内按ID升序（即树中的升序）输出
+     */
+    private void collectDesc(int offset, int limit, List<Long> ids) {
+        int position = offset;
+        int count = countAtDescPosition(position);
+        while (ids.size() < limit && position < tree.size()) {
+            int bucketStart = tree.rank(key(count, 0));
+            int bucketEnd = tree.rank(key(count + 1, 0));
+            int from = bucketStart + (position - greaterThan(count));
+            int take = Math.min(limit - ids.size(), bucketEnd - from);
+            tree.forEach(from, take, key -> ids.add(idOf(key)));
+            position += take;
+            if (bucketStart == 0) {
+                break;
+            }
+            // 下一个分组：升序中位于当前分组之前的最后一个值所在的收藏量
+            count = countOf(tree.get(bucketStart - 1));
+        }
+    }
+
+    /**
+     * 降序排名 position 所在分组的收藏量：满足"收藏量更大的图书数不超过 position"的最小收藏量
+     */
+    private int countAtDescPosition(int position) {
+        int low = 0;
+        int high = countOf(tree.get(tree.size() - 1));
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (greaterThan(mid) <= position) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 收藏量大于 count 的图书数
+     */
+    private int greaterThan(int count) {
+        return tree.size() - tree.rank(key(count + 1, 0));
+    }
+
+    private void set(Long bookId, int favoriteCount) {
+        if (bookId <= 0 || bookId > MAX_ID) {
+            return;
+        }
+        int count = clampCount(favoriteCount);
+        Integer previous = counts.put(bookId, count);
+        if (previous != null) {
+            if (previous == count) {
+                return;
+            }
+            tree.remove(key(previous, bookId));
+        }
+        tree.insert(key(count, bookId));
+    }
+
+    private void remove(Long bookId) {
+        Integer previous = counts.remove(bookId);
+        if (previous != null) {
+            tree.remove(key(previous, bookId));
+        }
+    }
+
+    private static int clampCount(int favoriteCount) {
+        return Math.min(Math.max(favoriteCount, 0), MAX_COUNT);
+    }
+
+    private static long key(int count, long bookId) {
+        return ((long) count << ID_BITS) | bookId;
+    }
+
+    private static int countOf(long key) {
+        return (int) (key >>> ID_BITS);
+    }
+
+    private static long idOf(long key) {
+        return key & MAX_ID;
+    }
+}
@@ -0,0 +1,222 @@
+package com.bookstore.counter;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.LongConsumer;
+
+/**
+ * 带子树大小的有序 long 集合（treap），支持按值求排名、按排名取值以及从指定排名开始顺序遍历，
+ * 插入、删除、求排名均为 O(log n)。节点保存在数组中，删除的节点复用，非线程安全，由调用方加锁。
+ */
+class RankTree {
+
+    private static final int NIL = 0;
+
+    private long[] keys = new long[16];
+
+    private int[] left = new int[16];
+
+    private int[] right = new int[16];
+
+    private int[] sizes = new int[16];
+
+    private int[] priorities = new int[16];
+
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    private int root = NIL;
+
+    /** 已分配的最大节点编号，0 号节点表示空 */
+    private int allocated;
+
+    /** 空闲节点链表头，通过 left 数组串联 */
+    private int freeHead = NIL;
+
+    /** split 的结果：小于给定值的部分和不小于给定值的部分 */
+    private int splitLess;
+
+    private int splitRest;
+
+    int size() {
+        return sizes[root];
+    }
+
+    void clear() {
+        root = NIL;
+        allocated = 0;
+        freeHead = NIL;
+    }
+
+    /**
+     * 插入值，调用方保证值不存在
+     */
+    void insert(long key) {
+        split(root, key);
+        int less = splitLess;
+        int rest = splitRest;
+        root = merge(merge(less, allocate(key)), rest);
+    }
+
+    /**
+     * 删除值，值不存在时不变
+     */
+    void remove(long key) {
+        split(root, key);
+        int less = splitLess;
+        split(splitRest, key + 1);
+        int rest = splitRest;
+        if (splitLess != NIL) {
+            release(splitLess);
+        }
+        root = merge(less, rest);
+    }
+
+    /**
+     * 小于 key 的值的个数
+     */
+    int rank(long key) {
+        int rank = 0;
+        int node = root;
+        while (node != NIL) {
+            if (keys[node] < key) {
+                rank += sizes[left[node]] + 1;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * 升序第 index 个值（从0开始），调用方保证 index 在范围内
+     */
+    long get(int index) {
+        int node = root;
+        while (true) {
+            int leftSize = sizes[left[node]];
+            if (index < leftSize) {
+                node = left[node];
+            } else if (index == leftSize) {
+                return keys[node];
+            } else {
+                index -= leftSize + 1;
+                node = right[node];
+            }
+        }
+    }
+
+    /**
+     * 从升序第 from 个值开始按升序依次处理 count 个值，超出范围的部分忽略
+     */
+    void forEach(int from, int count, LongConsumer action) {
+        if (from < 0 || from >= size() || count <= 0) {
+            return;
+        }
+        // 栈中保存尚未输出的祖先节点，出栈顺序即中序
+        int[] stack = new int[64];
+        int depth = 0;
+        int node = root;
+        int index = from;
+        while (true) {
+            int leftSize = sizes[left[node]];
+            if (index < leftSize) {
+                stack = push(stack, depth++, node);
+                node = left[node];
+            } else if (index == leftSize) {
+                stack = push(stack, depth++, node);
+                break;
+            } else {
+                index -= leftSize + 1;
+                node = right[node];
+            }
+        }
+        while (count > 0 && depth > 0) {
+            node = stack[--depth];
+            action.accept(keys[node]);
+            count--;
+            for (int child = right[node]; child != NIL; child = left[child]) {
+                stack = push(stack, depth++, child);
+            }
+        }
+    }
+
+    private static int[] push(int[] stack, int depth, int node) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth] = node;
+        return stack;
+    }
+
+    private void split(int node, long key) {
+        if (node == NIL) {
+            splitLess = NIL;
+            splitRest = NIL;
+            return;
+        }
+        if (keys[node] < key) {
+            split(right[node], key);
+            right[node] = splitLess;
+            update(node);
+            splitLess = node;
+        } else {
+            split(left[node], key);
+            left[node] = splitRest;
+            update(node);
+            splitRest = node;
+        }
+    }
+
+    private int merge(int a, int b) {
+        if (a == NIL) {
+            return b;
+        }
+        if (b == NIL) {
+            return a;
+        }
+        if (priorities[a] > priorities[b]) {
+            right[a] = merge(right[a], b);
+            update(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        update(b);
+        return b;
+    }
+
+    private void update(int node) {
+        sizes[node] = sizes[left[node]] + sizes[right[node]] + 1;
+    }
+
+    private int allocate(long key) {
+        int node;
+        if (freeHead != NIL) {
+            node = freeHead;
+            freeHead = left[node];
+        } else {
+            node = ++allocated;
+            if (node == keys.length) {
+                int capacity = keys.length * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+                priorities = Arrays.copyOf(priorities, capacity);
+            }
+        }
+        keys[node] = key;
+        left[node] = NIL;
+        right[node] = NIL;
+        sizes[node] = 1;
+        priorities[node] = random.nextInt();
+        return node;
+    }
+
+    private void release(int node) {
+        left[node] = freeHead;
+        right[node] = NIL;
+        sizes[node] = 0;
+        freeHead = node;
+    }
+}
@@ -0,0 +1,30 @@
+package com.bookstore.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 图书分面统计
+ * @param total 参与统计的图书数
+ * @param categories 各分类的图书数，按图书数倒序，不含未分类的图书
+ * @param prices 各价格区间的图书数，按价格升序，不含未定价的图书
+ */
+public record BookFacets(int total, List<CategoryCount> categories, List<PriceBucket> prices) {
+
+    /**
+     * @param category 分类
+     * @param count 图书数
+     * @param favoriteCount 该分类图书的收藏量之和
+     */
+    public record CategoryCount(String category, int count, long favoriteCount) {
+    }
+
+    /**
+     * 价格区间 [min, max)
+     * @param min 下限（含）
+     * @param max 上限（不含），最后一个区间为null
+     * @param count 图书数
+     */
+    public record PriceBucket(BigDecimal min, BigDecimal max, int count) {
+    }
+}
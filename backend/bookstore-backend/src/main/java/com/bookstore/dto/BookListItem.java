@@ -0,0 +1,33 @@
+package com.bookstore.dto;
+
+import com.bookstore.entity.Book;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 列表中的图书，不含描述，完整信息通过图书详情接口获取
+ */
+public record BookListItem(Long id, String name, String author, String category, BigDecimal price,
+                           Integer favoriteCount, LocalDateTime createTime, LocalDateTime updateTime) {
+
+    public static BookListItem from(Book book) {
+        return new BookListItem(book.getId(), book.getName(), book.getAuthor(), book.getCategory(),
+                book.getPrice(), book.getFavoriteCount(), book.getCreateTime(), book.getUpdateTime());
+    }
+
+    /**
+     * 与图书的列表字段是否一致
+     */
+    public boolean matches(Book book) {
+        return Objects.equals(id, book.getId())
+                && Objects.equals(name, book.getName())
+                && Objects.equals(author, book.getAuthor())
+                && Objects.equals(category, book.getCategory())
+                && Objects.equals(price, book.getPrice())
+                && Objects.equals(favoriteCount, book.getFavoriteCount())
+                && Objects.equals(createTime, book.getCreateTime())
+                && Objects.equals(updateTime, book.getUpdateTime());
+    }
+}
@@ -0,0 +1,25 @@
+package com.bookstore.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * nextCursor 为 null 表示没有下一页
+ */
+@Data
+public class CursorPage<T> {
+
+    private List<T> list;
+
+    private String nextCursor;
+
+    public CursorPage() {
+    }
+
+    public CursorPage(List<T> list, String nextCursor) {
+        this.list = list;
+        this.nextCursor = nextCursor;
+    }
+}
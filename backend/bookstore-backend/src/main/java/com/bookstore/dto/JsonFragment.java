@@ -0,0 +1,47 @@
+package com.bookstore.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * 已序列化的 JSON 片段
+ * 输出响应时原样写入，不再经过反射序列化；UTF-8 字节在创建时编码好，写入时直接复制
+ */
+@JsonSerialize(using = JsonFragment.Serializer.class)
+public final class JsonFragment {
+
+    private final SerializedString json;
+
+    public JsonFragment(String json) {
+        this.json = new SerializedString(json);
+        this.json.asUnquotedUTF8();
+    }
+
+    public String json() {
+        return json.getValue();
+    }
+
+    /**
+     * UTF-8 编码后的长度
+     */
+    public int byteLength() {
+        return json.asUnquotedUTF8().length;
+    }
+
+    public static class Serializer extends StdSerializer<JsonFragment> {
+
+        public Serializer() {
+            super(JsonFragment.class);
+        }
+
+        @Override
+        public void serialize(JsonFragment value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeRawValue(value.json);
+        }
+    }
+}
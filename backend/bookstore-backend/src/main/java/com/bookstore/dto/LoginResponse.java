@@ -0,0 +1,10 @@
+package com.bookstore.dto;
+
+/**
+ * 登录结果：令牌和用户基本信息
+ */
+public record LoginResponse(String token, UserInfo user) {
+
+    public record UserInfo(Long id, String username) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.bookstore.dto;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * 列表结果
+ * 分页查询时带 total、page、size，不分页时只有 list
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PageResult<T>(List<T> list, Long total, Long page, Long size) {
+
+    public static <T> PageResult<T> of(List<T> list) {
+        return new PageResult<>(list, null, null, null);
+    }
+
+    /**
+     * 使用分页信息和转换后的当前页数据
+     */
+    public static <T> PageResult<T> of(IPage<?> page, List<T> list) {
+        return new PageResult<>(list, page.getTotal(), page.getCurrent(), page.getSize());
+    }
+}
@@ -0,0 +1,23 @@
+package com.bookstore.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 统一响应结构
+ * 失败或没有返回数据时不输出 data 字段
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record Result<T>(int code, String message, T data) {
+
+    public static <T> Result<T> success(String message, T data) {
+        return new Result<>(200, message, data);
+    }
+
+    public static <T> Result<T> success(String message) {
+        return new Result<>(200, message, null);
+    }
+
+    public static <T> Result<T> error(int code, String message) {
+        return new Result<>(code, message, null);
+    }
+}
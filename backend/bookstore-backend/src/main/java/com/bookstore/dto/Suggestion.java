@@ -0,0 +1,10 @@
+package com.bookstore.dto;
+
+/**
+ * 搜索框输入提示
+ * @param text 提示文本（书名、作者或分类的原文）
+ * @param field 来源字段：name、author、category
+ * @param favoriteCount 包含该文本的图书的收藏量之和，用于排序
+ */
+public record Suggestion(String text, String field, long favoriteCount) {
+}
@@ -0,0 +1,230 @@
+package com.bookstore.loadtest;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 压测数据生成器，只在 loadtest 环境下启用
+ * 启动时向内嵌数据库写入用户、图书（中英文书名）和收藏，收藏的图书按 Zipf 分布选取，
+ * 少量热门图书集中了大部分收藏，与真实访问的长尾分布一致。
+ * 图书的收藏数与生成的收藏记录一致（不超过单本上限）。
+ */
+@Slf4j
+@Component
+@Profile("loadtest")
+public class LoadTestDataGenerator {
+
+    /** 每批写入的行数 */
+    private static final int BATCH_SIZE = 1000;
+
+    /** 单本图书收藏量上限，与 BookServiceImpl 一致 */
+    private static final int MAX_FAVORITE_COUNT = 1000;
+
+    /** 压测用户的统一密码 */
+    public static final String PASSWORD = "123456";
+
+    private static final String[] CJK_WORDS = {
+            "编程", "算法", "数据", "系统", "设计", "网络", "历史", "哲学", "经济", "文学",
+            "科学", "艺术", "心理", "管理", "人工智能", "机器学习", "分布式", "数据库", "中国", "世界",
+            "时间", "宇宙", "城市", "故事", "人生", "思想", "原理", "实践", "简史", "导论"
+    };
+
+    private static final String[] CJK_SUFFIXES = {"", "入门", "精要", "实战", "导论", "原理", "指南", "十讲"};
+
+    private static final String[] LATIN_WORDS = {
+            "Java", "Python", "Spring", "Effective", "Clean", "Code", "Design", "Patterns", "Linux", "Kernel",
+            "Distributed", "Systems", "Deep", "Learning", "Modern", "Practical", "Data", "Algorithms",
+            "Concurrency", "Network", "Database", "Architecture", "Refactoring", "Compilers"
+    };
+
+    private static final String[] CATEGORIES = {
+            "编程", "计算机", "科幻", "历史", "文学", "经济", "哲学", "艺术", "心理学", "管理"
+    };
+
+    private static final String[] AUTHORS = {
+            "刘慈欣", "余华", "鲁迅", "钱钟书", "张爱玲", "王小波", "路遥", "莫言",
+            "Bruce Eckel", "Joshua Bloch", "Martin Fowler", "Robert Martin", "Donald Knuth", "Kent Beck",
+            "Brian Goetz", "Andrew Tanenbaum"
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${bookstore.loadtest.users:1000}")
+    private int users;
+
+    @Value("${bookstore.loadtest.books:100000}")
+    private int books;
+
+    @Value("${bookstore.loadtest.favorites-per-user:20}")
+    private int favoritesPerUser;
+
+    @Value("${bookstore.loadtest.zipf-exponent:1.0}")
+    private double zipfExponent;
+
+    @Value("${bookstore.loadtest.seed:42}")
+    private long seed;
+
+    @PostConstruct
+    public void generate() {
+        long start = System.currentTimeMillis();
+        Random random = new Random(seed);
+        LocalDateTime now = LocalDateTime.now();
+
+        insertUsers(now);
+
+        // 先生成收藏，统计每本图书的收藏数后再写入图书
+        int[] favoriteCounts = new int[books + 1];
+        List<Object[]> favorites = generateFavorites(random, favoriteCounts, now);
+        insertBooks(random, favoriteCounts, now);
+        batchInsert("INSERT INTO favorite (user_id, book_id, create_time) VALUES (?, ?, ?)", favorites);
+
+        log.info("压测数据生成完成：用户 {}，图书 {}，收藏 {}，耗时 {} ms",
+                users, books, favorites.size(), System.currentTimeMillis() - start);
+    }
+
+    private void insertUsers(LocalDateTime now) {
+        Timestamp time = Timestamp.valueOf(now);
+        List<Object[]> rows = new ArrayList<>(users);
+        for (int i = 1; i <= users; i++) {
+            rows.add(new Object[]{"user" + i, PASSWORD, 1, time, time});
+        }
+        batchInsert("INSERT INTO user (username, password, status, create_time, update_time) VALUES (?, ?, ?, ?, ?)",
+                rows);
+    }
+
+    private void insertBooks(Random random, int[] favoriteCounts, LocalDateTime now) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int id = 1; id <= books; id++) {
+            String name = title(random);
+            String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            Timestamp createTime = Timestamp.valueOf(now.minusMinutes(books - id));
+            Timestamp updateTime = Timestamp.valueOf(now.minusMinutes(random.nextInt(books)));
+            rows.add(new Object[]{
+                    name,
+                    AUTHORS[random.nextInt(AUTHORS.length)],
+                    category,
+                    BigDecimal.valueOf(1000 + random.nextInt(20000), 2),
+                    "《" + name + "》是一本" + category + "类图书。",
+                    Math.min(favoriteCounts[id], MAX_FAVORITE_COUNT),
+                    createTime,
+                    updateTime
+            });
+            if (rows.size() == BATCH_SIZE) {
+                insertBookBatch(rows);
+                rows.clear();
+            }
+        }
+        insertBookBatch(rows);
+    }
+
+    private void insertBookBatch(List<Object[]> rows) {
+        // 图书ID由数据库自增生成，按插入顺序从1开始，与收藏记录中的图书ID对应
+        jdbcTemplate.batchUpdate("INSERT INTO book (name, author, category, price, description, favorite_count,"
+                + " create_time, update_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    /**
+     * 每个用户的收藏数在 0 到 2 倍平均值之间均匀分布，收藏的图书按 Zipf 分布选取且不重复
+     */
+    private List<Object[]> generateFavorites(Random random, int[] favoriteCounts, LocalDateTime now) {
+        ZipfSampler sampler = new ZipfSampler(books, zipfExponent, random);
+        List<Object[]> rows = new ArrayList<>(users * favoritesPerUser);
+        for (long userId = 1; userId <= users; userId++) {
+            int count = Math.min(random.nextInt(2 * favoritesPerUser + 1), books);
+            Set<Integer> bookIds = new HashSet<>();
+            // 热门图书容易重复抽中，限制尝试次数
+            for (int attempt = 0; bookIds.size() < count && attempt < count * 10; attempt++) {
+                bookIds.add(sampler.next());
+            }
+            for (int bookId : bookIds) {
+                favoriteCounts[bookId]++;
+                rows.add(new Object[]{userId, bookId,
+                        Timestamp.valueOf(now.minusSeconds(random.nextInt(30 * 24 * 3600)))});
+            }
+        }
+        return rows;
+    }
+
+    private void batchInsert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+
+    private static String title(Random random) {
+        StringBuilder title = new StringBuilder();
+        if (random.nextInt(5) < 3) {
+            title.append(CJK_WORDS[random.nextInt(CJK_WORDS.length)])
+                    .append(CJK_WORDS[random.nextInt(CJK_WORDS.length)])
+                    .append(CJK_SUFFIXES[random.nextInt(CJK_SUFFIXES.length)]);
+        } else {
+            title.append(LATIN_WORDS[random.nextInt(LATIN_WORDS.length)]).append(' ')
+                    .append(LATIN_WORDS[random.nextInt(LATIN_WORDS.length)]);
+        }
+        if (random.nextInt(5) == 0) {
+            title.append("（第").append(2 + random.nextInt(5)).append("版）");
+        }
+        return title.toString();
+    }
+
+    /**
+     * Zipf 分布采样：排名为 k 的图书被选中的概率与 1/k^s 成正比
+     * 预先计算累积分布，采样时二分查找；排名与图书ID的对应关系随机打乱，热门图书分散在整个ID范围内
+     */
+    static class ZipfSampler {
+
+        private final double[] cumulative;
+
+        private final int[] bookIdByRank;
+
+        private final Random random;
+
+        ZipfSampler(int size, double exponent, Random random) {
+            this.random = random;
+            cumulative = new double[size];
+            double sum = 0;
+            for (int rank = 1; rank <= size; rank++) {
+                sum += 1.0 / Math.pow(rank, exponent);
+                cumulative[rank - 1] = sum;
+            }
+            for (int i = 0; i < size; i++) {
+                cumulative[i] /= sum;
+            }
+
+            bookIdByRank = new int[size];
+            for (int i = 0; i < size; i++) {
+                bookIdByRank[i] = i + 1;
+            }
+            for (int i = size - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = bookIdByRank[i];
+                bookIdByRank[i] = bookIdByRank[j];
+                bookIdByRank[j] = tmp;
+            }
+        }
+
+        int next() {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return bookIdByRank[Math.min(index, bookIdByRank.length - 1)];
+        }
+    }
+}
@@ -3,7 +3,113 @@ package com.bookstore.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.bookstore.entity.Book;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface BookMapper extends BaseMapper<Book> {
-} 
\ No newline at end of file
+
+    /**
+     * 收藏数原子加一，收藏数为空视为0，达到上限时不更新
+     * @param id 图书ID
+     * @param max 收藏数上限
+     * @return 受影响行数，图书不存在或已达上限时为0
+     */
+    int incrementFavoriteCount(@Param("id") Long id, @Param("max") int max);
+
+    /**
+     * 收藏数原子减一，不低于0，收藏数为空时置为0
+     * @param id 图书ID
+     * @return 匹配行数，图书存在即为1（收藏数已为0时同样返回1）
+     */
+    int decrementFavoriteCount(@Param("id") Long id);
+
+    /**
+     * 批量累加收藏数，结果不低于0，且不超过上限（原值已超过上限时保持原值）
+     * @param deltas 图书ID -> 收藏数变化量
+     * @param max 收藏数上限
+     * @return 匹配行数
+     */
+    int batchAddFavoriteCount(@Param("deltas") Map<Long, Long> deltas, @Param("max") int max);
+
+    /**
+     * 查询书名、作者、分类任一包含关键词的图书ID，按更新时间倒序，更新时间相同按ID升序
+     * @param keyword 已转义的关键词
+     * @param fulltext 全文索引的 BOOLEAN MODE 查询，用于缩小候选集，为空时只用 LIKE
+     * @param matchedIds 字段规范化后才匹配的图书ID，不经过 LIKE 直接命中，可以为空
+     */
+    List<Long> searchIds(@Param("keyword") String keyword, @Param("fulltext") String fulltext,
+                         @Param("matchedIds") List<Long> matchedIds);
+
+    /**
+     * 按收藏量排序查询匹配关键词的图书ID，收藏量相同按ID升序
+     * @param keyword 已转义的关键词，匹配书名、作者、分类、描述
+     * @param fulltext 全文索引的 BOOLEAN MODE 查询，用于缩小候选集，为空时只用 LIKE
+     * @param matchedIds 字段规范化后才匹配的图书ID，不经过 LIKE 直接命中，可以为空
+     * @param asc 是否升序
+     */
+    List<Long> selectFavoriteSortIds(@Param("keyword") String keyword,
+                                     @Param("fulltext") String fulltext,
+                                     @Param("matchedIds") List<Long> matchedIds,
+                                     @Param("asc") boolean asc);
+
+    /**
+     * 查询图书的收藏数，只返回ID和收藏数两个字段
+     * @param ids 图书ID
+     */
+    List<Book> selectFavoriteCounts(@Param("ids") List<Long> ids);
+
+    /**
+     * 按ID升序逐行读取全部图书的列表字段（不含描述），需在事务内使用并在读取完毕后关闭
+     */
+    Cursor<Book> streamAllBooks();
+
+    /**
+     * 按ID升序逐行读取图书的全部字段，需在事务内使用并在读取完毕后关闭
+     * @param updatedSince 只读取更新时间不早于该时间的图书，为null时读取全部
+     */
+    Cursor<Book> streamExportBooks(@Param("updatedSince") LocalDateTime updatedSince);
+
+    /**
+     * 逐行读取全部图书的ID、书名、作者、分类和描述，结果交给 handler 处理
+     */
+    void scanSearchFields(ResultHandler<Book> handler);
+
+    /**
+     * 查询图书的ID、书名、作者、分类和描述
+     * @param ids 图书ID
+     */
+    List<Book> selectSearchFields(@Param("ids") List<Long> ids);
+
+    /**
+     * 逐行读取全部图书的ID和收藏数，结果交给 handler 处理，不在内存中保存完整列表
+     */
+    void scanFavoriteCounts(ResultHandler<Book> handler);
+
+    /**
+     * 逐行读取全部图书的ID、书名、作者、分类和收藏数，结果交给 handler 处理
+     */
+    void scanSuggestFields(ResultHandler<Book> handler);
+
+    /**
+     * 查询图书的ID、书名、作者、分类和收藏数
+     * @param ids 图书ID
+     */
+    List<Book> selectSuggestFields(@Param("ids") List<Long> ids);
+
+    /**
+     * 按ID升序逐行读取全部图书的ID、分类、价格和收藏数，结果交给 handler 处理
+     */
+    void scanFacetFields(ResultHandler<Book> handler);
+
+    /**
+     * 查询图书的ID、分类、价格和收藏数
+     * @param ids 图书ID
+     */
+    List<Book> selectFacetFields(@Param("ids") List<Long> ids);
+}
@@ -1,9 +1,35 @@
 package com.bookstore.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.bookstore.entity.Book;
 import com.bookstore.entity.Favorite;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.util.List;
  
 @Mapper
 public interface FavoriteMapper extends BaseMapper<Favorite> {
-} 
\ No newline at end of file
+
+    /**
+     * 查询用户收藏的图书，按收藏时间倒序
+     * @param userId 用户ID
+     */
+    List<Book> selectUserFavoriteBooks(@Param("userId") Long userId);
+
+    /**
+     * 分页查询用户收藏的图书，按收藏时间倒序
+     * @param page 分页参数
+     * @param userId 用户ID
+     */
+    IPage<Book> selectUserFavoriteBookPage(IPage<Book> page, @Param("userId") Long userId);
+
+    /**
+     * 流式查询用户收藏的图书，按收藏时间倒序
+     * 需要在事务内遍历，遍历结束后关闭
+     * @param userId 用户ID
+     */
+    Cursor<Book> streamUserFavoriteBooks(@Param("userId") Long userId);
+}
@@ -0,0 +1,68 @@
+package com.bookstore.metrics;
+
+import com.bookstore.cache.BookCache;
+import com.bookstore.cache.BookJsonCache;
+import com.bookstore.cache.BookQueryCache;
+import com.bookstore.cache.SingleFlight;
+import com.bookstore.cache.UserFavoriteCache;
+import com.bookstore.counter.FavoriteCountAggregator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 缓存与收藏数写回的监控指标
+ * 各本地缓存按 cache 标签区分，指标为 cache.gets（hit/miss）、cache.size、cache.evictions 等
+ */
+@Configuration
+public class CacheMetricsConfig {
+
+    @Bean
+    public MeterBinder cacheMetrics(BookCache bookCache, BookQueryCache bookQueryCache,
+                                    UserFavoriteCache userFavoriteCache, BookJsonCache bookJsonCache) {
+        return registry -> {
+            CaffeineCacheMetrics.monitor(registry, bookCache.nativeCache(), "book");
+            CaffeineCacheMetrics.monitor(registry, bookQueryCache.nativeCache(), "bookQuery");
+            CaffeineCacheMetrics.monitor(registry, userFavoriteCache.nativeCache(), "userFavorite");
+            CaffeineCacheMetrics.monitor(registry, bookJsonCache.nativeCache(), "bookJson");
+            Gauge.builder("bookstore.cache.user.favorite.bytes", userFavoriteCache, UserFavoriteCache::weightedSize)
+                    .description("用户收藏集合缓存占用的估算字节数")
+                    .register(registry);
+            Gauge.builder("bookstore.cache.book.json.bytes", bookJsonCache, BookJsonCache::weightedSize)
+                    .description("图书列表 JSON 片段缓存占用的字节数")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder singleFlightMetrics(SingleFlight singleFlight) {
+        return registry -> {
+            FunctionCounter.builder("bookstore.singleflight.executed", singleFlight, SingleFlight::getExecutedTotal)
+                    .description("实际执行加载的次数")
+                    .register(registry);
+            FunctionCounter.builder("bookstore.singleflight.coalesced", singleFlight, SingleFlight::getCoalescedTotal)
+                    .description("被合并的调用次数")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder favoriteCounterMetrics(FavoriteCountAggregator aggregator) {
+        return registry -> {
+            Gauge.builder("bookstore.favorite.count.pending.books", aggregator, FavoriteCountAggregator::getPendingBooks)
+                    .description("等待写回收藏数的图书数")
+                    .register(registry);
+            FunctionCounter.builder("bookstore.favorite.count.flushed.rows", aggregator,
+                            FavoriteCountAggregator::getFlushedRows)
+                    .description("已写回的图书行数")
+                    .register(registry);
+            FunctionCounter.builder("bookstore.favorite.count.failed.batches", aggregator,
+                            FavoriteCountAggregator::getFailedBatches)
+                    .description("写回失败的批次数")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.bookstore.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * 按接口记录每个请求执行的 SQL 语句数（bookstore.db.calls）
+ * 标签与 http.server.requests 一致，使用请求映射的路径模板而不是实际路径。
+ * 异步请求（如流式输出）在首次分派结束时暂存已执行的语句数，异步分派完成后合并记录；
+ * 在异步任务线程中执行的语句不在计数范围内。
+ */
+@Component
+public class DbCallMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PENDING_CALLS = DbCallMetricsInterceptor.class.getName() + ".PENDING_CALLS";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        DbCallCounter.start();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        int calls = DbCallCounter.stop();
+        if (request.getAttribute(PENDING_CALLS) instanceof Integer pending) {
+            calls += pending;
+            request.removeAttribute(PENDING_CALLS);
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("bookstore.db.calls")
+                .description("单个请求执行的SQL语句数")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                .register(meterRegistry)
+                .record(calls);
+    }
+
+    /**
+     * 异步处理开始时不会调用 afterCompletion，在这里结束当前线程的计数，避免线程变量残留
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        request.setAttribute(PENDING_CALLS, DbCallCounter.stop());
+    }
+}
@@ -0,0 +1,44 @@
+package com.bookstore.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 服务方法耗时统计
+ * 对 service.impl 包下所有公共方法记录 bookstore.service 计时器，按类名、方法名和异常类型区分。
+ * 同一个类内部的自调用不经过代理，不会单独计时。
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    /** 计时器名称，直方图和分位数在 application.yml 中配置 */
+    public static final String TIMER_NAME = "bookstore.service";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Around("within(com.bookstore.service.impl..*) && execution(public * *(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(TIMER_NAME)
+                    .description("服务方法耗时")
+                    .tag("class", joinPoint.getTarget().getClass().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.bookstore.metrics;
+
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * SQL 日志插件
+ * 记录语句ID、耗时、SQL 和绑定参数，输出到 com.bookstore.sql 日志，由 logback-spring.xml 中的异步 appender 写出，
+ * 请求线程只负责把日志放入队列。按 bookstore.sql-log.mode 选择记录范围：
+ * off 不记录；slow 只记录超过阈值的慢查询；sampled 慢查询加上每 N 条抽样一条；all 全部记录（仅用于排查问题）。
+ * 不需要记录的语句不会拼接日志内容。
+ */
+@Slf4j(topic = "com.bookstore.sql")
+@Component
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "queryCursor", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "batch", args = {Statement.class})
+})
+public class SqlLogInterceptor implements Interceptor {
+
+    /** 单个参数值最多输出的字符数 */
+    private static final int MAX_VALUE_LENGTH = 100;
+
+    /** 最多输出的参数个数 */
+    private static final int MAX_PARAMETERS = 50;
+
+    @Value("${bookstore.sql-log.mode:slow}")
+    private String mode;
+
+    @Value("${bookstore.sql-log.sample-rate:100}")
+    private int sampleRate;
+
+    @Value("${bookstore.sql-log.slow-threshold-ms:200}")
+    private long slowThresholdMs;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if ("off".equals(mode)) {
+            return invocation.proceed();
+        }
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            if (elapsedMs >= slowThresholdMs) {
+                log.warn("慢SQL {} ms {}", elapsedMs, describe(invocation));
+            } else if (shouldLog()) {
+                log.info("SQL {} ms {}", elapsedMs, describe(invocation));
+            }
+        }
+    }
+
+    private boolean shouldLog() {
+        return switch (mode) {
+            case "all" -> true;
+            case "sampled" -> sampleRate <= 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+            default -> false;
+        };
+    }
+
+    /**
+     * 语句ID、压缩空白后的 SQL 和绑定参数
+     */
+    private static String describe(Invocation invocation) {
+        StatementHandler handler = PluginUtils.realTarget(invocation.getTarget());
+        PluginUtils.MPStatementHandler statementHandler = PluginUtils.mpStatementHandler(handler);
+        BoundSql boundSql = statementHandler.boundSql();
+        return statementHandler.mappedStatement().getId()
+                + " | " + boundSql.getSql().replaceAll("\\s+", " ").trim()
+                + " | " + parameters(statementHandler.configuration(), boundSql);
+    }
+
+    /**
+     * 按 SQL 中占位符的顺序取出参数值，取值方式与 MyBatis DefaultParameterHandler 一致，
+     * 字符串加引号，其他值附带类型
+     */
+    private static String parameters(Configuration configuration, BoundSql boundSql) {
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        Object parameterObject = boundSql.getParameterObject();
+        MetaObject metaObject = null;
+
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < mappings.size(); i++) {
+            if (i == MAX_PARAMETERS) {
+                result.append(", ...(").append(mappings.size()).append(')');
+                break;
+            }
+            ParameterMapping mapping = mappings.get(i);
+            if (mapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            String property = mapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(property)) {
+                value = boundSql.getAdditionalParameter(property);
+            } else if (parameterObject == null) {
+                value = null;
+            } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+                value = parameterObject;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameterObject);
+                }
+                value = metaObject.getValue(property);
+            }
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append(format(value));
+        }
+        return result.append(']').toString();
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        String text = value.toString();
+        if (text.length() > MAX_VALUE_LENGTH) {
+            text = text.substring(0, MAX_VALUE_LENGTH) + "...";
+        }
+        if (value instanceof CharSequence) {
+            return "'" + text + "'";
+        }
+        return text + "(" + value.getClass().getSimpleName() + ")";
+    }
+}
@@ -0,0 +1,221 @@
+package com.bookstore.metrics;
+
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按 Mapper 语句统计执行情况
+ * 记录每条语句（Mapper 方法，分页插件生成的 count 语句单独统计）的执行次数、总耗时、最大耗时和返回行数，
+ * 超过慢SQL阈值的执行单独计数，执行出错的也计入次数和耗时并单独计数。
+ * 统计从应用启动或上次重置开始累计，通过 /admin/sql-stats 查看。
+ * 游标查询只统计打开游标的耗时，行数在遍历时才知道，不计入。
+ */
+@Component
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "queryCursor", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "batch", args = {Statement.class})
+})
+public class SqlStatsInterceptor implements Interceptor {
+
+    /** 最多统计的语句数，正常情况下语句数固定，只用于防止异常情况下无限增长 */
+    private static final int MAX_STATEMENTS = 2000;
+
+    /** RoutingStatementHandler 中结果集处理器持有的 ResultHandler */
+    private static final String RESULT_HANDLER = "delegate.resultSetHandler.resultHandler";
+
+    /** 与 SQL 日志共用慢SQL阈值 */
+    @Value("${bookstore.sql-log.slow-threshold-ms:200}")
+    private long slowThresholdMs;
+
+    private final Map<String, StatementStats> stats = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        StatementHandler handler = PluginUtils.realTarget(invocation.getTarget());
+        String statementId = PluginUtils.mpStatementHandler(handler).mappedStatement().getId();
+        CountingResultHandler<?> counter = countRows(handler, invocation);
+
+        long start = System.nanoTime();
+        Object result = null;
+        boolean failed = true;
+        try {
+            result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            long rows = counter != null ? counter.rows : rows(result);
+            record(statementId, System.nanoTime() - start, rows, failed);
+        }
+    }
+
+    /**
+     * 按指定指标倒序取前 limit 条语句的统计
+     * @param limit 条数
+     * @param sortBy 排序指标：total（总耗时，默认）、max、avg、count、rows
+     */
+    public List<Map<String, Object>> top(int limit, String sortBy) {
+        Comparator<StatementStats> comparator = switch (sortBy == null ? "total" : sortBy) {
+            case "max" -> Comparator.comparingLong(s -> s.maxNanos.get());
+            case "avg" -> Comparator.comparingDouble(StatementStats::avgNanos);
+            case "count" -> Comparator.comparingLong(s -> s.count.sum());
+            case "rows" -> Comparator.comparingLong(s -> s.rows.sum());
+            default -> Comparator.comparingLong(s -> s.totalNanos.sum());
+        };
+
+        List<StatementStats> sorted = new ArrayList<>(stats.values());
+        sorted.sort(comparator.reversed());
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (StatementStats s : sorted.subList(0, Math.min(Math.max(limit, 0), sorted.size()))) {
+            result.add(s.toMap(slowThresholdMs));
+        }
+        return result;
+    }
+
+    /**
+     * 清空统计
+     */
+    public void reset() {
+        stats.clear();
+    }
+
+    void record(String statementId, long elapsedNanos, long rows, boolean failed) {
+        StatementStats s = stats.get(statementId);
+        if (s == null) {
+            if (stats.size() >= MAX_STATEMENTS) {
+                return;
+            }
+            s = stats.computeIfAbsent(statementId, StatementStats::new);
+        }
+        s.count.increment();
+        s.totalNanos.add(elapsedNanos);
+        s.maxNanos.accumulate(elapsedNanos);
+        s.rows.add(rows);
+        if (elapsedNanos >= slowThresholdMs * 1_000_000) {
+            s.slowCount.increment();
+        }
+        if (failed) {
+            s.errorCount.increment();
+        }
+    }
+
+    /**
+     * 查询传入了 ResultHandler 时，结果逐行交给 handler，返回值中没有行，
+     * 把结果集处理器中的 handler 换成计数的包装，统计交给 handler 的行数
+     * StatementHandler 每次执行新建，替换不影响其他执行
+     * @return 计数包装，不是这种查询时返回 null
+     */
+    private static CountingResultHandler<?> countRows(StatementHandler handler, Invocation invocation) {
+        if (!"query".equals(invocation.getMethod().getName()) || invocation.getArgs()[1] == null) {
+            return null;
+        }
+        MetaObject metaObject = SystemMetaObject.forObject(handler);
+        if (!metaObject.hasGetter(RESULT_HANDLER)) {
+            return null;
+        }
+        Object resultHandler = metaObject.getValue(RESULT_HANDLER);
+        if (!(resultHandler instanceof ResultHandler<?> delegate)) {
+            return null;
+        }
+        CountingResultHandler<?> counter = new CountingResultHandler<>(delegate);
+        metaObject.setValue(RESULT_HANDLER, counter);
+        return counter;
+    }
+
+    /**
+     * 查询返回的行数或更新影响的行数
+     */
+    private static long rows(Object result) {
+        if (result instanceof Collection<?> list) {
+            return list.size();
+        }
+        if (result instanceof Number number) {
+            return number.longValue();
+        }
+        // 批量执行的影响行数在 flushStatements 时才返回，这里不计入
+        return 0;
+    }
+
+    private static final class CountingResultHandler<T> implements ResultHandler<T> {
+
+        private final ResultHandler<T> delegate;
+
+        private long rows;
+
+        private CountingResultHandler(ResultHandler<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void handleResult(ResultContext<? extends T> resultContext) {
+            rows++;
+            delegate.handleResult(resultContext);
+        }
+    }
+
+    private static final class StatementStats {
+
+        private final String statementId;
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private final LongAdder rows = new LongAdder();
+
+        private final LongAdder slowCount = new LongAdder();
+
+        private final LongAdder errorCount = new LongAdder();
+
+        private StatementStats(String statementId) {
+            this.statementId = statementId;
+        }
+
+        private double avgNanos() {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) totalNanos.sum() / n;
+        }
+
+        private Map<String, Object> toMap(long slowThresholdMs) {
+            long n = count.sum();
+            long max = maxNanos.get();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("statement", statementId);
+            map.put("count", n);
+            map.put("totalMs", totalNanos.sum() / 1_000_000.0);
+            map.put("avgMs", avgNanos() / 1_000_000.0);
+            map.put("maxMs", max / 1_000_000.0);
+            map.put("rows", rows.sum());
+            map.put("avgRows", n == 0 ? 0 : (double) rows.sum() / n);
+            map.put("slowCount", slowCount.sum());
+            map.put("errorCount", errorCount.sum());
+            map.put("slow", max >= slowThresholdMs * 1_000_000);
+            return map;
+        }
+    }
+}
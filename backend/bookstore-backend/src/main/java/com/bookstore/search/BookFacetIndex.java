@@ -0,0 +1,365 @@
+package com.bookstore.search;
+
+import com.bookstore.dto.BookFacets;
+import com.bookstore.entity.Book;
+import com.bookstore.mapper.BookMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图书分面统计的列式快照
+ * 每本图书占一行，各字段保存在按图书ID升序排列的基本类型数组中：分类为字典编码，价格以分为单位，另有收藏数。
+ * 统计时顺序扫描数组（或按ID二分定位查询命中的行），不创建图书对象，百万级图书的一次统计在毫秒级。
+ * 快照在第一次统计时全量加载；图书写入时原地更新对应的行，删除的行只做标记，标记过多时压缩；
+ * 收藏数变化只标记图书失效，下一次统计前批量重新读取。
+ */
+@Component
+public class BookFacetIndex {
+
+    /** 分类为空 */
+    private static final int NO_CATEGORY = -1;
+
+    /** 已删除的行 */
+    private static final int DELETED = -2;
+
+    /** 价格为空 */
+    private static final int NO_PRICE = -1;
+
+    /** 重新加载失效图书时每批的数量 */
+    private static final int RELOAD_BATCH_SIZE = 1000;
+
+    /** 删除标记超过该行数且超过总行数的一半时压缩 */
+    private static final int COMPACT_THRESHOLD = 1024;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    /** 价格区间的边界（元），区间为 [0, e1)、[e1, e2)……[en, +∞) */
+    @Value("${bookstore.facets.price-edges:20,50,100,200}")
+    private int[] priceEdges;
+
+    /** 价格区间的边界（分） */
+    private int[] priceEdgeCents;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** 需要从数据库重新加载的图书ID */
+    private final Set<Long> staleIds = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean built = false;
+
+    /** 正在全量加载，加载期间提交的修改可能没有被读到 */
+    private volatile boolean building = false;
+
+    private long[] ids = new long[0];
+
+    private int[] categoryCodes = new int[0];
+
+    private int[] priceCents = new int[0];
+
+    private int[] favoriteCounts = new int[0];
+
+    /** 已使用的行数，含删除标记 */
+    private int rows;
+
+    private int deletedRows;
+
+    /** 分类字典：编码 -> 分类 */
+    private final List<String> categories = new ArrayList<>();
+
+    /** 分类字典：分类 -> 编码 */
+    private final Map<String, Integer> categoryCodesByName = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        priceEdgeCents = Arrays.stream(priceEdges).sorted().map(edge -> edge * 100).toArray();
+    }
+
+    /**
+     * 统计分类和价格区间
+     * @param bookIds 参与统计的图书ID，为null时统计全部图书
+     */
+    public BookFacets facets(List<Long> bookIds) {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            int[] categoryCounts = new int[categories.size()];
+            long[] categoryFavorites = new long[categories.size()];
+            int[] priceCounts = new int[priceEdgeCents.length + 1];
+            int total = 0;
+
+            if (bookIds == null) {
+                for (int row = 0; row < rows; row++) {
+                    if (categoryCodes[row] != DELETED) {
+                        count(row, categoryCounts, categoryFavorites, priceCounts);
+                        total++;
+                    }
+                }
+            } else {
+                for (Long id : bookIds) {
+                    int row = find(id);
+                    if (row >= 0 && categoryCodes[row] != DELETED) {
+                        count(row, categoryCounts, categoryFavorites, priceCounts);
+                        total++;
+                    }
+                }
+            }
+            return new BookFacets(total, categoryResult(categoryCounts, categoryFavorites), priceResult(priceCounts));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 用调用方已加载的图书数据更新快照
+     * @param bookId 图书ID
+     * @param current 图书当前数据，已删除时为null
+     */
+    public void refresh(Long bookId, Book current) {
+        if (bookId == null) {
+            return;
+        }
+        if (!built) {
+            markStale(bookId);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            apply(bookId, current);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 标记图书已失效（收藏数变化、事务回滚），下一次统计前从数据库重新加载
+     * 尚未加载时只在全量加载进行中记录：进行中的加载可能没有读到该图书的最新值，之后开始的加载能读到。
+     * 先读 building 再读 built：加载完成时先置 built 再清 building，两者不会同时读到 false
+     */
+    public void markStale(Long bookId) {
+        if (bookId != null && (building || built)) {
+            staleIds.add(bookId);
+        }
+    }
+
+    /**
+     * 清空快照，下一次统计时重新全量加载
+     */
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            ids = new long[0];
+            categoryCodes = new int[0];
+            priceCents = new int[0];
+            favoriteCounts = new int[0];
+            rows = 0;
+            deletedRows = 0;
+            categories.clear();
+            categoryCodesByName.clear();
+            staleIds.clear();
+            built = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 快照中的图书数
+     */
+    public int size() {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            return rows - deletedRows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureFresh() {
+        if (built && staleIds.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                building = true;
+                try {
+                    // 按ID升序逐行追加，不保存图书列表
+                    bookMapper.scanFacetFields(context -> apply(context.getResultObject().getId(), context.getResultObject()));
+                    built = true;
+                } finally {
+                    building = false;
+                }
+            }
+            if (!staleIds.isEmpty()) {
+                List<Long> ids = new ArrayList<>(staleIds);
+                staleIds.removeAll(ids);
+                reload(ids);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reload(List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += RELOAD_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + RELOAD_BATCH_SIZE, ids.size()));
+            Map<Long, Book> loaded = new HashMap<>(batch.size() * 2);
+            for (Book book : bookMapper.selectFacetFields(batch)) {
+                loaded.put(book.getId(), book);
+            }
+            for (Long id : batch) {
+                apply(id, loaded.get(id));
+            }
+        }
+    }
+
+    private void count(int row, int[] categoryCounts, long[] categoryFavorites, int[] priceCounts) {
+        int category = categoryCodes[row];
+        if (category >= 0) {
+            categoryCounts[category]++;
+            categoryFavorites[category] += favoriteCounts[row];
+        }
+        int price = priceCents[row];
+        if (price >= 0) {
+            priceCounts[bucketOf(price)]++;
+        }
+    }
+
+    /**
+     * 价格所在的区间：不大于价格的边界个数
+     */
+    private int bucketOf(int cents) {
+        int index = Arrays.binarySearch(priceEdgeCents, cents);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private List<BookFacets.CategoryCount> categoryResult(int[] counts, long[] favorites) {
+        List<BookFacets.CategoryCount> result = new ArrayList<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                result.add(new BookFacets.CategoryCount(categories.get(code), counts[code], favorites[code]));
+            }
+        }
+        result.sort(Comparator.comparingInt(BookFacets.CategoryCount::count).reversed()
+                .thenComparing(BookFacets.CategoryCount::category));
+        return result;
+    }
+
+    private List<BookFacets.PriceBucket> priceResult(int[] counts) {
+        List<BookFacets.PriceBucket> result = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            BigDecimal min = i == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(priceEdgeCents[i - 1], 2);
+            BigDecimal max = i == priceEdgeCents.length ? null : BigDecimal.valueOf(priceEdgeCents[i], 2);
+            result.add(new BookFacets.PriceBucket(min, max, counts[i]));
+        }
+        return result;
+    }
+
+    /**
+     * 用图书的当前数据更新对应的行：已有的行原地修改，新图书按ID插入（自增ID总是追加在末尾）
+     */
+    private void apply(Long bookId, Book current) {
+        int row = find(bookId);
+        if (current == null) {
+            if (row >= 0 && categoryCodes[row] != DELETED) {
+                categoryCodes[row] = DELETED;
+                deletedRows++;
+                if (deletedRows > COMPACT_THRESHOLD && deletedRows * 2 > rows) {
+                    compact();
+                }
+            }
+            return;
+        }
+        if (row < 0) {
+            row = -row - 1;
+            insertRow(row, bookId);
+        } else if (categoryCodes[row] == DELETED) {
+            deletedRows--;
+        }
+        categoryCodes[row] = categoryCode(current.getCategory());
+        priceCents[row] = cents(current.getPrice());
+        favoriteCounts[row] = current.getFavoriteCount() == null ? 0 : Math.max(current.getFavoriteCount(), 0);
+    }
+
+    private void insertRow(int row, long bookId) {
+        if (rows == ids.length) {
+            int capacity = Math.max(1024, rows * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            favoriteCounts = Arrays.copyOf(favoriteCounts, capacity);
+        }
+        if (row < rows) {
+            System.arraycopy(ids, row, ids, row + 1, rows - row);
+            System.arraycopy(categoryCodes, row, categoryCodes, row + 1, rows - row);
+            System.arraycopy(priceCents, row, priceCents, row + 1, rows - row);
+            System.arraycopy(favoriteCounts, row, favoriteCounts, row + 1, rows - row);
+        }
+        ids[row] = bookId;
+        rows++;
+    }
+
+    /**
+     * 去掉删除标记的行，保持ID升序
+     */
+    private void compact() {
+        int live = 0;
+        for (int row = 0; row < rows; row++) {
+            if (categoryCodes[row] != DELETED) {
+                ids[live] = ids[row];
+                categoryCodes[live] = categoryCodes[row];
+                priceCents[live] = priceCents[row];
+                favoriteCounts[live] = favoriteCounts[row];
+                live++;
+            }
+        }
+        rows = live;
+        deletedRows = 0;
+    }
+
+    /**
+     * 图书所在的行，不存在时返回 -(插入位置) - 1
+     */
+    private int find(long bookId) {
+        return Arrays.binarySearch(ids, 0, rows, bookId);
+    }
+
+    private int categoryCode(String category) {
+        if (category == null || category.isEmpty()) {
+            return NO_CATEGORY;
+        }
+        Integer code = categoryCodesByName.get(category);
+        if (code == null) {
+            code = categories.size();
+            categories.add(category);
+            categoryCodesByName.put(category, code);
+        }
+        return code;
+    }
+
+    /**
+     * 价格换算为分，超出 int 范围的按上限计
+     */
+    private static int cents(BigDecimal price) {
+        if (price == null || price.signum() < 0) {
+            return NO_PRICE;
+        }
+        return (int) Math.min(price.movePointRight(2).longValue(), Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,305 @@
+package com.bookstore.search;
+
+import com.bookstore.cache.BookQueryCache;
+import com.bookstore.entity.Book;
+import com.bookstore.mapper.BookMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图书内存倒排索引
+ * 对书名、作者、分类建立单字和二元组（bigram）倒排表，中英文统一按字符切分，
+ * 因此任意子串查询都能先通过倒排表缩小候选集，再逐条做 contains 校验，
+ * 查询代价与命中数相关，而不是与图书总量相关。
+ * 字段与查询词使用同一规范化（{@link BookQueryCache#normalize}），全角、兼容字符按其规范形式匹配。
+ * 索引在第一次查询时全量构建，之后通过 {@link #refresh(Long)} 增量维护。
+ */
+@Component
+public class BookSearchIndex {
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** gram -> 图书ID集合 */
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+
+    /** 图书ID -> 参与检索的字段（已规范化） */
+    private final Map<Long, Doc> docs = new HashMap<>();
+
+    /** 需要重新从数据库加载的图书ID（事务回滚、全量构建期间提交的修改） */
+    private final Set<Long> staleIds = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean built = false;
+
+    /** 正在全量构建，构建期间提交的修改可能没有被读到 */
+    private volatile boolean building = false;
+
+    /**
+     * 按关键词检索图书ID
+     * 书名、作者、分类任一字段规范化后包含规范化的关键词即命中，
+     * 结果按更新时间倒序，更新时间相同按ID升序
+     * @param query 查询关键词（非空）
+     * @return 命中的图书ID列表
+     */
+    public List<Long> search(String query) {
+        ensureFresh();
+        String normalizedQuery = BookQueryCache.normalize(query);
+
+        lock.readLock().lock();
+        try {
+            // 取最短的倒排表作为候选集
+            Set<Long> candidates = null;
+            for (String gram : grams(normalizedQuery)) {
+                Set<Long> posting = postings.get(gram);
+                if (posting == null) {
+                    return new ArrayList<>();
+                }
+                if (candidates == null || posting.size() < candidates.size()) {
+                    candidates = posting;
+                }
+            }
+            if (candidates == null) {
+                return new ArrayList<>();
+            }
+
+            List<Map.Entry<Long, Doc>> hits = new ArrayList<>();
+            for (Long id : candidates) {
+                Doc doc = docs.get(id);
+                if (doc != null && doc.matches(normalizedQuery)) {
+                    hits.add(Map.entry(id, doc));
+                }
+            }
+            hits.sort(Comparator.<Map.Entry<Long, Doc>, LocalDateTime>comparing(e -> e.getValue().updateTime(),
+                            Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(Map.Entry::getKey));
+
+            List<Long> ids = new ArrayList<>(hits.size());
+            for (Map.Entry<Long, Doc> hit : hits) {
+                ids.add(hit.getKey());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 从数据库重新加载单本图书并更新索引，图书不存在时从索引中移除
+     * 在写操作所在事务内调用，可以读到本事务尚未提交的数据
+     * @param bookId 图书ID
+     */
+    public void refresh(Long bookId) {
+        if (bookId == null) {
+            return;
+        }
+        if (!built) {
+            markStale(bookId);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            reload(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 用调用方已加载的图书数据更新索引
+     * @param bookId 图书ID
+     * @param current 图书当前数据，已删除时为null
+     */
+    public void refresh(Long bookId, Book current) {
+        if (bookId == null) {
+            return;
+        }
+        if (!built) {
+            markStale(bookId);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            remove(bookId);
+            if (current != null) {
+                put(current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 标记图书索引已失效，下一次查询前重新加载（用于事务回滚）
+     * 尚未构建时只在全量构建进行中记录，之后开始的构建能读到已提交的数据；
+     * 先读 building 再读 built：构建完成时先置 built 再清 building，两者不会同时读到 false
+     * @param bookId 图书ID
+     */
+    public void markStale(Long bookId) {
+        if (bookId != null && (building || built)) {
+            staleIds.add(bookId);
+        }
+    }
+
+    /**
+     * 清空索引，下一次查询时重新全量构建
+     */
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docs.clear();
+            staleIds.clear();
+            built = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 当前已索引的图书数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureFresh() {
+        if (built && staleIds.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                building = true;
+                try {
+                    for (Book book : bookMapper.selectList(null)) {
+                        put(book);
+                    }
+                    built = true;
+                } finally {
+                    building = false;
+                }
+            }
+            if (!staleIds.isEmpty()) {
+                List<Long> ids = new ArrayList<>(staleIds);
+                staleIds.removeAll(ids);
+                for (Long id : ids) {
+                    reload(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reload(Long bookId) {
+        remove(bookId);
+        Book book = bookMapper.selectById(bookId);
+        if (book != null) {
+            put(book);
+        }
+    }
+
+    private void put(Book book) {
+        Doc doc = new Doc(normalize(book.getName()), normalize(book.getAuthor()), normalize(book.getCategory()),
+                book.getUpdateTime());
+        docs.put(book.getId(), doc);
+        for (String gram : doc.grams()) {
+            postings.computeIfAbsent(gram, k -> new HashSet<>()).add(book.getId());
+        }
+    }
+
+    private void remove(Long bookId) {
+        Doc doc = docs.remove(bookId);
+        if (doc == null) {
+            return;
+        }
+        for (String gram : doc.grams()) {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(bookId);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : BookQueryCache.normalize(value);
+    }
+
+    /**
+     * 切分 gram：单字符文本取单字，否则取所有相邻二元组
+     * 中文按字切分后的二元组即常用的 CJK bigram，英文同样适用于任意子串匹配
+     */
+    static Set<String> grams(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        if (text.length() == 1) {
+            grams.add(text);
+            return grams;
+        }
+        for (int i = 0; i + 1 < text.length(); i++) {
+            grams.add(text.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    /**
+     * 单本图书的索引文档
+     */
+    private record Doc(String name, String author, String category, LocalDateTime updateTime) {
+
+        boolean matches(String normalizedQuery) {
+            return (name != null && name.contains(normalizedQuery))
+                    || (author != null && author.contains(normalizedQuery))
+                    || (category != null && category.contains(normalizedQuery));
+        }
+
+        /**
+         * 文档需要写入的全部 gram：每个字段的单字和二元组
+         */
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            addGrams(grams, name);
+            addGrams(grams, author);
+            addGrams(grams, category);
+            return grams;
+        }
+
+        private static void addGrams(Set<String> grams, String text) {
+            if (text == null) {
+                return;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                grams.add(text.substring(i, i + 1));
+                if (i + 1 < text.length()) {
+                    grams.add(text.substring(i, i + 2));
+                }
+            }
+        }
+    }
+}
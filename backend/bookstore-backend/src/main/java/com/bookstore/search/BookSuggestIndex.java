@@ -0,0 +1,531 @@
+package com.bookstore.search;
+
+import com.bookstore.cache.BookQueryCache;
+import com.bookstore.dto.Suggestion;
+import com.bookstore.entity.Book;
+import com.bookstore.mapper.BookMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 搜索框前缀提示索引
+ * 书名、作者、分类（规范化后）作为候选词放入压缩前缀树（radix tree），候选词中每个空格后的单词也作为入口，
+ * 输入 "patterns" 同样能提示 "Design Patterns"。候选词按包含它的图书的收藏量之和排序，
+ * 每个节点预先保存子树中排名前 {@value #MAX_SUGGESTIONS} 的候选词，查询只需沿前缀走到对应节点，与图书总量无关。
+ * 索引在第一次查询时全量构建；图书写入时按新数据增量更新，只重算受影响候选词到根的路径；
+ * 收藏数变化只标记图书失效，下一次查询前批量重新读取。
+ */
+@Component
+public class BookSuggestIndex {
+
+    /** 每个节点保存的候选词数，也是单次返回的最大条数 */
+    public static final int MAX_SUGGESTIONS = 10;
+
+    /** 单个候选词最多的入口数（整体加上空格后的单词） */
+    private static final int MAX_KEYS_PER_TERM = 8;
+
+    /** 重新加载失效图书时每批的数量 */
+    private static final int RELOAD_BATCH_SIZE = 1000;
+
+    private static final String FIELD_NAME = "name";
+
+    private static final String FIELD_AUTHOR = "author";
+
+    private static final String FIELD_CATEGORY = "category";
+
+    /** 收藏量之和倒序，相同时按文本、字段排序，保证结果稳定 */
+    private static final Comparator<Term> ORDER = Comparator.<Term>comparingLong(term -> term.score).reversed()
+            .thenComparing(term -> term.key)
+            .thenComparing(term -> term.field);
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Node root = new Node("", null);
+
+    /** 字段 + 规范化文本 -> 候选词 */
+    private final Map<String, Term> terms = new HashMap<>();
+
+    /** 图书ID -> 图书贡献的候选词和收藏数 */
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    /** 需要从数据库重新加载的图书ID */
+    private final Set<Long> staleIds = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean built = false;
+
+    /** 正在全量构建，构建期间提交的修改可能没有被读到 */
+    private volatile boolean building = false;
+
+    /**
+     * 按前缀取提示
+     * @param prefix 用户输入，规范化方式与检索一致
+     * @param limit 最多返回条数，不超过 {@value #MAX_SUGGESTIONS}
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = BookQueryCache.normalize(prefix);
+        List<Suggestion> result = new ArrayList<>();
+        if (key.isEmpty() || limit <= 0) {
+            return result;
+        }
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            Node node = find(key);
+            if (node == null) {
+                return result;
+            }
+            for (Term term : node.top) {
+                if (result.size() == limit) {
+                    break;
+                }
+                result.add(new Suggestion(term.text, term.field, term.score));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 用调用方已加载的图书数据更新索引
+     * @param bookId 图书ID
+     * @param current 图书当前数据，已删除时为null
+     */
+    public void refresh(Long bookId, Book current) {
+        if (bookId == null) {
+            return;
+        }
+        if (!built) {
+            markStale(bookId);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Set<Node> dirty = new HashSet<>();
+            apply(bookId, current, dirty);
+            updateAll(dirty);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 标记图书已失效（收藏数变化、事务回滚），下一次查询前从数据库重新加载
+     * 尚未构建时只在全量构建进行中记录：进行中的构建可能没有读到该图书的最新值，之后开始的构建能读到。
+     * 先读 building 再读 built：构建完成时先置 built 再清 building，两者不会同时读到 false
+     */
+    public void markStale(Long bookId) {
+        if (bookId != null && (building || built)) {
+            staleIds.add(bookId);
+        }
+    }
+
+    /**
+     * 清空索引，下一次查询时重新全量构建
+     */
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            root.top = List.of();
+            terms.clear();
+            entries.clear();
+            staleIds.clear();
+            built = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 当前的候选词数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureFresh() {
+        if (built && staleIds.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                building = true;
+                try {
+                    // 逐行处理，只查询参与提示的字段；全部写入后再自底向上一次性计算各节点的候选
+                    bookMapper.scanSuggestFields(context -> {
+                        Book book = context.getResultObject();
+                        apply(book.getId(), book, null);
+                    });
+                    computeTop(root);
+                    built = true;
+                } finally {
+                    building = false;
+                }
+            }
+            if (!staleIds.isEmpty()) {
+                List<Long> ids = new ArrayList<>(staleIds);
+                staleIds.removeAll(ids);
+                reload(ids);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reload(List<Long> ids) {
+        // 同一批中的图书常有共同的候选词（如分类），受影响的节点最后统一重算一次
+        Set<Node> dirty = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += RELOAD_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + RELOAD_BATCH_SIZE, ids.size()));
+            Map<Long, Book> loaded = new HashMap<>(batch.size() * 2);
+            for (Book book : bookMapper.selectSuggestFields(batch)) {
+                loaded.put(book.getId(), book);
+            }
+            for (Long id : batch) {
+                apply(id, loaded.get(id), dirty);
+            }
+        }
+        updateAll(dirty);
+    }
+
+    /**
+     * 用图书的当前数据替换它原先的贡献
+     * @param dirty 收集需要重算候选的节点，全量构建时为 null
+     */
+    private void apply(Long bookId, Book current, Set<Node> dirty) {
+        Entry previous = entries.get(bookId);
+        if (current == null) {
+            if (previous != null) {
+                entries.remove(bookId);
+                removeBook(previous, dirty);
+            }
+            return;
+        }
+
+        int count = current.getFavoriteCount() == null ? 0 : Math.max(current.getFavoriteCount(), 0);
+        String name = BookQueryCache.normalize(current.getName());
+        String author = BookQueryCache.normalize(current.getAuthor());
+        String category = BookQueryCache.normalize(current.getCategory());
+
+        if (previous != null && previous.sameText(name, author, category)) {
+            // 只有收藏数变化：调整候选词的分数，不改变树的结构
+            int delta = count - previous.count;
+            if (delta != 0) {
+                entries.put(bookId, new Entry(previous.name, previous.author, previous.category, count));
+                for (Term term : previous.terms()) {
+                    term.score += delta;
+                    if (dirty != null) {
+                        dirty.addAll(term.nodes);
+                    }
+                }
+            }
+            return;
+        }
+
+        if (previous != null) {
+            removeBook(previous, dirty);
+        }
+        entries.put(bookId, new Entry(
+                addTerm(FIELD_NAME, name, current.getName(), count, dirty),
+                addTerm(FIELD_AUTHOR, author, current.getAuthor(), count, dirty),
+                addTerm(FIELD_CATEGORY, category, current.getCategory(), count, dirty),
+                count));
+    }
+
+    private void removeBook(Entry entry, Set<Node> dirty) {
+        for (Term term : entry.terms()) {
+            removeTerm(term, entry.count, dirty);
+        }
+    }
+
+    private Term addTerm(String field, String key, String text, int count, Set<Node> dirty) {
+        if (key.isEmpty()) {
+            return null;
+        }
+        Term term = terms.get(field + ':' + key);
+        if (term == null) {
+            term = new Term(field, key, text.trim());
+            terms.put(field + ':' + key, term);
+            for (String entryKey : keys(key)) {
+                Node node = insert(entryKey);
+                node.terms.add(term);
+                term.nodes.add(node);
+            }
+        }
+        term.books++;
+        term.score += count;
+        if (dirty != null) {
+            dirty.addAll(term.nodes);
+        }
+        return term;
+    }
+
+    private void removeTerm(Term term, int count, Set<Node> dirty) {
+        term.books--;
+        term.score -= count;
+        if (term.books > 0) {
+            if (dirty != null) {
+                dirty.addAll(term.nodes);
+            }
+            return;
+        }
+        terms.remove(term.field + ':' + term.key);
+        for (Node node : term.nodes) {
+            node.terms.remove(term);
+            Node affected = prune(node);
+            if (dirty != null) {
+                dirty.add(affected);
+            }
+        }
+    }
+
+    /**
+     * 候选词的入口：整体，以及每个空格之后的部分
+     */
+    static List<String> keys(String key) {
+        List<String> keys = new ArrayList<>();
+        keys.add(key);
+        for (int i = 1; i < key.length() && keys.size() < MAX_KEYS_PER_TERM; i++) {
+            if (Character.isWhitespace(key.charAt(i - 1)) && !Character.isWhitespace(key.charAt(i))) {
+                keys.add(key.substring(i));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 前缀所在的节点：前缀在某条边的中间结束时取该边指向的节点，其子树即全部补全
+     */
+    private Node find(String key) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                return null;
+            }
+            int length = Math.min(child.label.length(), key.length() - i);
+            if (!key.regionMatches(i, child.label, 0, length)) {
+                return null;
+            }
+            i += length;
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * 插入入口并返回其结束节点，与已有的边部分重合时拆分该边
+     */
+    private Node insert(String key) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            char first = key.charAt(i);
+            Node child = node.children.get(first);
+            if (child == null) {
+                child = new Node(key.substring(i), node);
+                node.children.put(first, child);
+                return child;
+            }
+            int common = 0;
+            while (common < child.label.length() && i + common < key.length()
+                    && child.label.charAt(common) == key.charAt(i + common)) {
+                common++;
+            }
+            if (common < child.label.length()) {
+                Node middle = new Node(child.label.substring(0, common), node);
+                middle.top = child.top;
+                node.children.put(first, middle);
+                child.label = child.label.substring(common);
+                child.parent = middle;
+                middle.children.put(child.label.charAt(0), child);
+                child = middle;
+            }
+            node = child;
+            i += common;
+        }
+        return node;
+    }
+
+    /**
+     * 删除候选词后清理不再需要的节点：没有候选词也没有子节点的节点删除，
+     * 没有候选词且只剩一个子节点的节点与子节点合并（保留子节点，结束于子节点的候选词不受影响）
+     * @return 需要从它开始向上重算的节点
+     */
+    private Node prune(Node node) {
+        while (node != root && node.terms.isEmpty() && node.children.isEmpty()) {
+            node.parent.children.remove(node.label.charAt(0));
+            node = node.parent;
+        }
+        if (node != root && node.terms.isEmpty() && node.children.size() == 1) {
+            Node child = node.children.values().iterator().next();
+            child.label = node.label + child.label;
+            child.parent = node.parent;
+            node.parent.children.put(child.label.charAt(0), child);
+            return child.parent;
+        }
+        return node;
+    }
+
+    /**
+     * 重算给定节点及其全部祖先的候选，按深度从深到浅，每个节点只算一次；
+     * 根节点对应空前缀，不提供提示，不计算
+     */
+    private void updateAll(Set<Node> dirty) {
+        Map<Node, Integer> depths = new HashMap<>();
+        for (Node node : dirty) {
+            for (Node current = node; current != null && current != root && !depths.containsKey(current);
+                    current = current.parent) {
+                depths.put(current, depth(current));
+            }
+        }
+        List<Node> nodes = new ArrayList<>(depths.keySet());
+        nodes.sort(Comparator.comparing(depths::get, Comparator.reverseOrder()));
+        for (Node node : nodes) {
+            node.top = mergeTop(node);
+        }
+    }
+
+    private int depth(Node node) {
+        int depth = 0;
+        for (Node current = node; current != null && current != root; current = current.parent) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * 自底向上计算整棵子树各节点的候选
+     */
+    private void computeTop(Node node) {
+        for (Node child : node.children.values()) {
+            computeTop(child);
+        }
+        if (node != root) {
+            node.top = mergeTop(node);
+        }
+    }
+
+    /**
+     * 节点自身的候选词与各子节点的候选合并取前 N 个。子树中的前 N 个一定在某个子节点的前 N 个之中；
+     * 同一候选词可能通过多个入口出现在不同子节点中，需要去重
+     */
+    private static List<Term> mergeTop(Node node) {
+        List<Term> candidates = new ArrayList<>(node.terms);
+        for (Node child : node.children.values()) {
+            candidates.addAll(child.top);
+        }
+        candidates.sort(ORDER);
+        List<Term> top = new ArrayList<>(Math.min(candidates.size(), MAX_SUGGESTIONS));
+        for (Term term : candidates) {
+            if (top.size() == MAX_SUGGESTIONS) {
+                break;
+            }
+            if (!top.contains(term)) {
+                top.add(term);
+            }
+        }
+        return top;
+    }
+
+    /**
+     * 压缩前缀树的节点，label 为从父节点到该节点的边上的字符串
+     */
+    private static final class Node {
+
+        private String label;
+
+        private Node parent;
+
+        /** 边的首字符 -> 子节点 */
+        private final Map<Character, Node> children = new HashMap<>();
+
+        /** 在该节点结束的候选词 */
+        private final List<Term> terms = new ArrayList<>(1);
+
+        /** 子树中排名靠前的候选词 */
+        private List<Term> top = List.of();
+
+        private Node(String label, Node parent) {
+            this.label = label;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * 候选词，按字段和规范化文本区分，多本图书共享
+     */
+    private static final class Term {
+
+        private final String field;
+
+        private final String key;
+
+        /** 展示用原文，取第一本图书的写法 */
+        private final String text;
+
+        /** 入口的结束节点，节点拆分、合并时保持不变 */
+        private final List<Node> nodes = new ArrayList<>(1);
+
+        /** 包含该候选词的图书数 */
+        private int books;
+
+        /** 包含该候选词的图书的收藏量之和 */
+        private long score;
+
+        private Term(String field, String key, String text) {
+            this.field = field;
+            this.key = key;
+            this.text = text;
+        }
+    }
+
+    /**
+     * 单本图书贡献的候选词，字段为空时对应的候选词为null
+     */
+    private record Entry(Term name, Term author, Term category, int count) {
+
+        boolean sameText(String name, String author, String category) {
+            return Objects.equals(keyOf(this.name), name)
+                    && Objects.equals(keyOf(this.author), author)
+                    && Objects.equals(keyOf(this.category), category);
+        }
+
+        List<Term> terms() {
+            List<Term> terms = new ArrayList<>(3);
+            for (Term term : new Term[]{name, author, category}) {
+                if (term != null) {
+                    terms.add(term);
+                }
+            }
+            return terms;
+        }
+
+        private static String keyOf(Term term) {
+            return term == null ? "" : term.key;
+        }
+    }
+}
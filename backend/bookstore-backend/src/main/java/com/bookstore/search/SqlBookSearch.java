@@ -0,0 +1,176 @@
+package com.bookstore.search;
+
+import com.bookstore.cache.BookQueryCache;
+import com.bookstore.entity.Book;
+import com.bookstore.mapper.BookMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 数据库检索
+ * 过滤和排序都在数据库中完成，只返回命中的图书ID，不再把整张表读到应用中。
+ * 匹配规则与 {@link BookSearchIndex} 一致：字段规范化后包含规范化的查询词。
+ * 数据库中保存的是原文，LIKE 只能校验原文（忽略大小写）包含查询词；原文含全角、兼容字符的图书
+ * 规范化后才能匹配，这类图书的ID单独记录在内存中，检索时按数据库当前数据在应用中校验，命中的ID随查询一起传入。
+ * 开启 bookstore.search.fulltext 时先用 ngram 全文索引缩小候选集（仅 MySQL，索引见 db/fulltext-mysql.sql），
+ * 全文索引只作为必要条件，最终结果仍以 LIKE 为准。
+ */
+@Component
+public class SqlBookSearch {
+
+    /** ngram 分词长度，与 MySQL 默认的 ngram_token_size 一致 */
+    private static final int NGRAM_SIZE = 2;
+
+    /** 按ID校验字段时每批查询的图书数 */
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Value("${bookstore.search.fulltext:false}")
+    private boolean fulltext;
+
+    /**
+     * 字段原文不是规范形式的图书ID
+     * 只增不减：图书修改或删除后多出的ID在校验时按数据库当前数据排除，不会造成误检
+     */
+    private final Set<Long> normalizedIds = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantLock buildLock = new ReentrantLock();
+
+    private volatile boolean built = false;
+
+    /**
+     * 按关键词检索书名、作者、分类，结果按更新时间倒序，更新时间相同按ID升序
+     * @param normalizedQuery 规范化后的查询词（非空）
+     */
+    public List<Long> search(String normalizedQuery) {
+        return bookMapper.searchIds(toLikeKeyword(normalizedQuery), fulltextQuery(normalizedQuery),
+                matchNormalized(normalizedQuery, false));
+    }
+
+    /**
+     * 按关键词检索书名、作者、分类、描述，按收藏量排序，收藏量相同按ID升序
+     * @param normalizedQuery 规范化后的查询词（非空）
+     * @param asc 是否升序
+     */
+    public List<Long> favoriteSortIds(String normalizedQuery, boolean asc) {
+        return bookMapper.selectFavoriteSortIds(toLikeKeyword(normalizedQuery), fulltextQuery(normalizedQuery),
+                matchNormalized(normalizedQuery, true), asc);
+    }
+
+    /**
+     * 图书写入后记录原文不是规范形式的图书；事务回滚时多记录的ID同样在校验时排除
+     * 与全量扫描并发时不会遗漏：扫描没有读到的修改，提交后会再次调用
+     * @param bookId 图书ID
+     * @param current 图书当前数据，已删除时为null
+     */
+    public void refresh(Long bookId, Book current) {
+        if (bookId != null && current != null && needsNormalization(current)) {
+            normalizedIds.add(bookId);
+        }
+    }
+
+    /**
+     * 清空记录，下一次检索时重新全量扫描
+     */
+    public void reset() {
+        buildLock.lock();
+        try {
+            normalizedIds.clear();
+            built = false;
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * 转义 LIKE 通配符
+     */
+    static String toLikeKeyword(String query) {
+        return query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * 生成 BOOLEAN MODE 全文查询：按空白拆分，每个词作为必须出现的短语。
+     * 包含查询词的文档一定包含其中每个词的全部二元组，因此不会漏检；
+     * 短于 ngram 长度或含标点的词无法可靠命中索引，不参与全文过滤。没有可用的词时返回 null，只用 LIKE
+     */
+    String fulltextQuery(String query) {
+        if (!fulltext) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        for (String term : query.split("\\s+")) {
+            if (term.codePointCount(0, term.length()) >= NGRAM_SIZE
+                    && term.codePoints().allMatch(Character::isLetterOrDigit)) {
+                terms.add("+\"" + term + "\"");
+            }
+        }
+        return terms.isEmpty() ? null : String.join(" ", terms);
+    }
+
+    /**
+     * 字段中是否有原文不是 NFKC 规范形式的，这类字段用原文做 LIKE 可能漏检
+     */
+    static boolean needsNormalization(Book book) {
+        return !isNormalized(book.getName()) || !isNormalized(book.getAuthor())
+                || !isNormalized(book.getCategory()) || !isNormalized(book.getDescription());
+    }
+
+    /**
+     * 在原文不是规范形式的图书中，按数据库当前数据找出规范化后匹配查询词的图书
+     * @return 命中的图书ID，没有时返回空列表
+     */
+    private List<Long> matchNormalized(String normalizedQuery, boolean withDescription) {
+        ensureBuilt();
+        List<Long> ids = new ArrayList<>(normalizedIds);
+        List<Long> matched = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += LOAD_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + LOAD_BATCH_SIZE, ids.size()));
+            for (Book book : bookMapper.selectSearchFields(batch)) {
+                if (contains(book.getName(), normalizedQuery)
+                        || contains(book.getAuthor(), normalizedQuery)
+                        || contains(book.getCategory(), normalizedQuery)
+                        || (withDescription && contains(book.getDescription(), normalizedQuery))) {
+                    matched.add(book.getId());
+                }
+            }
+        }
+        return matched;
+    }
+
+    private void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        buildLock.lock();
+        try {
+            if (!built) {
+                bookMapper.scanSearchFields(context -> {
+                    Book book = context.getResultObject();
+                    refresh(book.getId(), book);
+                });
+                built = true;
+            }
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    private static boolean isNormalized(String value) {
+        return value == null || Normalizer.isNormalized(value, Normalizer.Form.NFKC);
+    }
+
+    private static boolean contains(String value, String normalizedQuery) {
+        return value != null && BookQueryCache.normalize(value).contains(normalizedQuery);
+    }
+}
@@ -1,9 +1,15 @@
 package com.bookstore.service;
 
+import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.bookstore.dto.BookFacets;
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.Suggestion;
 import com.bookstore.entity.Book;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 图书服务接口
@@ -32,6 +38,84 @@ public interface BookService extends IService<Book> {
      */
     List<Book> listAllBooksAndSortByFavoriteCount(String query, String sortType);
     
+    /**
+     * 逐条处理全部图书（不含描述），按ID升序
+     * 通过数据库游标读取，不在内存中保存完整列表，处理期间占用一个数据库连接
+     * @param consumer 对每本图书执行的操作
+     */
+    void streamAllBooks(Consumer<Book> consumer);
+    
+    /**
+     * 逐条处理图书的全部字段，按ID升序，用于导出
+     * 通过数据库游标读取，处理期间占用一个数据库连接
+     * @param updatedSince 只处理更新时间不早于该时间的图书，为null时处理全部；
+     *                     收藏数变化不更新 update_time，不为null时不返回收藏数（favoriteCount 为null）
+     * @param consumer 对每本图书执行的操作
+     */
+    void exportBooks(LocalDateTime updatedSince, Consumer<Book> consumer);
+    
+    /**
+     * 按收藏量排序逐条处理全部图书（不含描述），收藏量相同按ID升序
+     * @param sortType 排序类型: 'asc'升序, 'desc'降序
+     * @param consumer 对每本图书执行的操作
+     */
+    void streamBooksByFavoriteCount(String sortType, Consumer<Book> consumer);
+    
+    /**
+     * 分页获取图书列表，排序规则与 listAllBooks 一致
+     * @param query 查询条件
+     * @param page 页码，从1开始
+     * @param size 每页条数
+     * @return 当前页图书及总数
+     */
+    IPage<Book> pageBooks(String query, long page, long size);
+    
+    /**
+     * 游标分页获取图书列表，排序规则与 listAllBooks 一致
+     * @param query 查询条件
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 当前页图书及下一页游标
+     * @throws IllegalArgumentException 游标格式错误，或游标对应的图书已不在结果中
+     */
+    CursorPage<Book> listBooksAfter(String query, String cursor, int size);
+    
+    /**
+     * 按收藏量排序分页获取图书列表
+     * @param query 搜索关键词
+     * @param sortType 排序类型: 'asc'升序, 'desc'降序
+     * @param page 页码，从1开始
+     * @param size 每页条数
+     * @return 当前页图书及总数
+     */
+    IPage<Book> pageBooksByFavoriteCount(String query, String sortType, long page, long size);
+    
+    /**
+     * 按收藏量排序游标分页获取图书列表
+     * @param query 搜索关键词
+     * @param sortType 排序类型: 'asc'升序, 'desc'降序
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页条数
+     * @return 当前页图书及下一页游标
+     * @throws IllegalArgumentException 游标格式错误，或游标对应的图书已不在结果中
+     */
+    CursorPage<Book> listBooksByFavoriteCountAfter(String query, String sortType, String cursor, int size);
+    
+    /**
+     * 搜索框输入提示，按前缀匹配书名、作者、分类，按收藏量排序
+     * @param prefix 用户输入的前缀
+     * @param limit 最多返回条数
+     * @return 提示列表，前缀为空时返回空列表
+     */
+    List<Suggestion> suggest(String prefix, int limit);
+    
+    /**
+     * 统计查询结果的分类和价格区间分布
+     * @param query 搜索关键词，为空时统计全部图书
+     * @return 各分类、各价格区间的图书数
+     */
+    BookFacets facets(String query);
+    
     /**
      * 增加图书收藏数
      * @param bookId 图书ID
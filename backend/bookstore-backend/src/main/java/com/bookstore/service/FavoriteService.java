@@ -1,10 +1,13 @@
 package com.bookstore.service;
 
+import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.bookstore.entity.Book;
 import com.bookstore.entity.Favorite;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface FavoriteService extends IService<Favorite> {
     
@@ -32,10 +35,34 @@ public interface FavoriteService extends IService<Favorite> {
      */
     boolean isFavorite(Long userId, Long bookId);
     
+    /**
+     * 批量查询用户是否已收藏，一次查询返回已收藏的部分
+     * @param userId 用户ID
+     * @param bookIds 图书ID
+     * @return 已收藏的图书ID，顺序与传入顺序一致
+     */
+    List<Long> filterFavorites(Long userId, Collection<Long> bookIds);
+    
     /**
      * 获取用户收藏的所有图书
      * @param userId 用户ID
      * @return 图书列表
      */
     List<Book> getAllUserFavorites(Long userId);
-} 
\ No newline at end of file
+    
+    /**
+     * 分页获取用户收藏的图书，按收藏时间倒序
+     * @param userId 用户ID
+     * @param page 页码，从1开始
+     * @param size 每页条数
+     * @return 当前页图书及总数
+     */
+    IPage<Book> pageUserFavorites(Long userId, long page, long size);
+    
+    /**
+     * 流式遍历用户收藏的图书，按收藏时间倒序，适用于收藏量很大的用户
+     * @param userId 用户ID
+     * @param consumer 逐条处理图书
+     */
+    void streamUserFavorites(Long userId, Consumer<Book> consumer);
+}
@@ -1,16 +1,45 @@
 package com.bookstore.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.bookstore.cache.BookCache;
+import com.bookstore.cache.BookQueryCache;
+import com.bookstore.cache.CatalogVersion;
+import com.bookstore.cache.SingleFlight;
+import com.bookstore.counter.FavoriteCountAggregator;
+import com.bookstore.counter.FavoriteLeaderboard;
+import com.bookstore.dto.BookFacets;
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.Suggestion;
 import com.bookstore.entity.Book;
 import com.bookstore.mapper.BookMapper;
+import com.bookstore.search.BookFacetIndex;
+import com.bookstore.search.BookSearchIndex;
+import com.bookstore.search.BookSuggestIndex;
+import com.bookstore.search.SqlBookSearch;
 import com.bookstore.service.BookService;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -20,59 +49,106 @@ import java.util.stream.Collectors;
 @Service
 public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements BookService {
     
+    /** 按ID批量加载时每批的最大数量，避免 IN 条件过长 */
+    private static final int LOAD_BATCH_SIZE = 1000;
+    
+    /** 单本图书收藏量上限 */
+    private static final int MAX_FAVORITE_COUNT = 1000;
+    
+    /** 分页查询单页最大条数 */
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+    
+    @Autowired
+    private SqlBookSearch sqlBookSearch;
+    
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+    
+    @Autowired
+    private BookFacetIndex bookFacetIndex;
+    
+    /** 关键词检索方式：memory 内存倒排索引；sql 由数据库过滤 */
+    @Value("${bookstore.search.backend:memory}")
+    private String searchBackend;
+    
+    @Autowired
+    private FavoriteCountAggregator favoriteCountAggregator;
+    
+    @Autowired
+    private BookCache bookCache;
+    
+    @Autowired
+    private SingleFlight singleFlight;
+    
+    @Autowired
+    private BookQueryCache bookQueryCache;
+    
+    @Autowired
+    private CatalogVersion catalogVersion;
+    
+    @Autowired
+    private FavoriteLeaderboard favoriteLeaderboard;
+    
+    /**
+     * 新增图书，同时写入搜索索引
+     */
+    @Override
+    public boolean save(Book entity) {
+        boolean success = super.save(entity);
+        if (success) {
+            afterBookWrite(entity.getId());
+        }
+        return success;
+    }
+    
+    /**
+     * 更新图书，同时刷新搜索索引
+     */
+    @Override
+    public boolean updateById(Book entity) {
+        boolean success = super.updateById(entity);
+        if (success) {
+            afterBookWrite(entity.getId());
+        }
+        return success;
+    }
+    
+    /**
+     * 删除图书，同时从搜索索引移除
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean success = super.removeById(id);
+        if (success) {
+            afterBookWrite(Long.valueOf(id.toString()));
+        }
+        return success;
+    }
+    
     /**
      * 获取所有图书列表
      * 支持按名称、作者、分类进行模糊查询
-     * 添加了多重条件判断和循环，适合白盒测试的路径覆盖和条件覆盖
+     * 有查询条件时通过内存倒排索引或数据库检索（结果ID列表按规范化的查询词缓存），只加载命中的图书
      */
     @Override
     public List<Book> listAllBooks(String query) {
-        // 先获取全部图书
-        List<Book> allBooks = list();
-        
         // 如果查询条件为空，直接返回全部
         if (!StringUtils.hasText(query)) {
-            return allBooks;
+            return coalesce("book:list:", this::list);
         }
         
-        // 使用循环结构进行多条件过滤，而不是直接使用SQL查询
-        List<Book> filteredBooks = new ArrayList<>();
-        for (Book book : allBooks) {
-            // 添加选择结构进行多条件匹配
-            boolean nameMatch = false;
-            boolean authorMatch = false; 
-            boolean categoryMatch = false;
-            
-            // 检查书名是否匹配
-            if (book.getName() != null && book.getName().toLowerCase().contains(query.toLowerCase())) {
-                nameMatch = true;
-            }
-            
-            // 检查作者是否匹配
-            if (book.getAuthor() != null && book.getAuthor().toLowerCase().contains(query.toLowerCase())) {
-                authorMatch = true;
-            }
-            
-            // 检查分类是否匹配
-            if (book.getCategory() != null && book.getCategory().toLowerCase().contains(query.toLowerCase())) {
-                categoryMatch = true;
-            }
-            
-            // 满足任一条件即加入结果集
-            if (nameMatch || authorMatch || categoryMatch) {
-                filteredBooks.add(book);
-            }
-        }
-        
-        // 按更新时间排序（使用Stream API的排序功能）
-        return filteredBooks.stream()
-                .sorted(Comparator.comparing(Book::getUpdateTime, Comparator.nullsLast(Comparator.reverseOrder())))
-                .collect(Collectors.toList());
+        // 索引结果已按更新时间排序
+        String normalized = BookQueryCache.normalize(query);
+        return coalesce("book:list:" + normalized, () -> listByIdsInOrder(searchIds(normalized)));
     }
     
     /**
      * 获取图书详情
      * 添加了边界条件检查和异常处理
+     * 优先读取本地缓存，未命中时查库并缓存规范化后的图书，并发的相同请求只查一次库
      */
     @Override
     public Book getBookDetail(Long id) {
@@ -81,6 +157,20 @@ public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements Bo
             return null;
         }
         
+        Book cached = bookCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        
+        return coalesce("book:detail:" + id, () -> loadBookDetail(id));
+    }
+    
+    /**
+     * 查库加载图书详情并做数据规范化
+     * 加载期间图书被失效过时不写入缓存；事务中可能读到本事务未提交的修改，同样不写入
+     */
+    private Book loadBookDetail(Long id) {
+        long version = bookCache.version(id);
         Book book = getById(id);
         
         // 对图书信息进行后处理（适合测试）
@@ -99,6 +189,10 @@ public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements Bo
             if (book.getPrice() == null || book.getPrice().compareTo(BigDecimal.ZERO) < 0) {
                 book.setPrice(new BigDecimal("0.00"));
             }
+            
+            if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                bookCache.put(book, version);
+            }
         }
         
         return book;
@@ -106,7 +200,9 @@ public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements Bo
 
     /**
      * 增加图书收藏数
-     * 添加了业务规则和限制条件
+     * 上限校验在同一条 UPDATE 中完成，并发收藏不会丢失更新
+     * 开启写回模式时只累加到内存，由聚合器批量写入；累加前由聚合器确认图书存在，
+     * 并按数据库中的收藏数加上尚未写回的变化校验上限
      */
     @Override
     public boolean incrementFavoriteCount(Long bookId) {
@@ -114,30 +210,23 @@ public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements Bo
             return false;
         }
         
-        Book book = getById(bookId);
-        if (book == null) {
-            return false;
+        if (favoriteCountAggregator.isEnabled()) {
+            return favoriteCountAggregator.tryIncrement(bookId);
         }
         
-        // 初始化收藏数（如果为null）
-        int currentCount = book.getFavoriteCount() == null ? 0 : book.getFavoriteCount();
-        
-        // 添加收藏量上限验证（防止刷数据）
         // 这里有商业规则：单本图书收藏量不超过1000
-        if (currentCount >= 1000) {
-            // 达到上限，不再增加
-            return false;
+        // 图书不存在或达到上限时不更新，返回false
+        boolean success = baseMapper.incrementFavoriteCount(bookId, MAX_FAVORITE_COUNT) > 0;
+        if (success) {
+            afterFavoriteCountChange(bookId, 1);
         }
-        
-        // 正常增加收藏数
-        book.setFavoriteCount(currentCount + 1);
-        
-        return updateById(book);
+        return success;
     }
 
     /**
      * 减少图书收藏数
-     * 添加了业务规则和边界条件处理
+     * 收藏数为空时置为0，已经是0时不变但仍视为成功，图书不存在返回false
+     * 开启写回模式时确认图书存在后只累加到内存，由聚合器批量写入
      */
     @Override
     public boolean decrementFavoriteCount(Long bookId) {
@@ -145,66 +234,438 @@ public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements Bo
             return false;
         }
         
-        Book book = getById(bookId);
-        if (book == null) {
-            return false;
+        if (favoriteCountAggregator.isEnabled()) {
+            if (getBookDetail(bookId) == null) {
+                return false;
+            }
+            favoriteCountAggregator.add(bookId, -1);
+            return true;
         }
         
-        Integer favoriteCount = book.getFavoriteCount();
-        
-        // 增加多种边界条件检查
-        if (favoriteCount == null) {
-            // 如果收藏数为null，设置为0
-            book.setFavoriteCount(0);
-            return updateById(book);
-        } else if (favoriteCount > 0) {
-            // 正常减少收藏数
-            book.setFavoriteCount(favoriteCount - 1);
-            return updateById(book);
-        } else {
-            // 收藏数已经是0，不做变更
-            return true; // 操作成功但没有实际变更
+        boolean success = baseMapper.decrementFavoriteCount(bookId) > 0;
+        if (success) {
+            afterFavoriteCountChange(bookId, -1);
         }
+        return success;
     }
 
     /**
      * 获取所有图书并按收藏量排序
-     * 使用Java Stream API进行复杂处理
+     * 无查询条件时按收藏量排行的顺序加载；有查询条件时由数据库过滤排序，结果ID列表按规范化的查询词缓存
      */
     @Override
     public List<Book> listAllBooksAndSortByFavoriteCount(String query, String sortType) {
-        // 获取所有图书
-        List<Book> allBooks = list();
-        
-        // 使用Stream API进行过滤和排序
-        return allBooks.stream()
-            // 按查询条件过滤
-            .filter(book -> {
-                if (!StringUtils.hasText(query)) {
-                    return true; // 无查询条件时返回所有图书
+        boolean asc = "asc".equalsIgnoreCase(sortType);
+        if (StringUtils.hasText(query)) {
+            return listByIdsInOrder(favoriteSortIds(BookQueryCache.normalize(query), asc));
+        }
+        return listByIdsInOrder(favoriteLeaderboard.range(asc, 0, Integer.MAX_VALUE));
+    }
+
+    /**
+     * 逐条处理全部图书
+     * 游标只能在打开它的事务内读取，因此整个处理过程在一个只读事务中完成
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllBooks(Consumer<Book> consumer) {
+        try (Cursor<Book> cursor = baseMapper.streamAllBooks()) {
+            for (Book book : cursor) {
+                consumer.accept(book);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * 导出图书，与 streamAllBooks 相同通过游标读取，包含描述
+     * 收藏数的增减不修改 update_time（见 BookMapper.xml），按更新时间过滤得不到收藏数的变化，
+     * 增量导出时不输出收藏数，避免下游把过时的收藏数当作最新值
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBooks(LocalDateTime updatedSince, Consumer<Book> consumer) {
+        try (Cursor<Book> cursor = baseMapper.streamExportBooks(updatedSince)) {
+            for (Book book : cursor) {
+                if (updatedSince != null) {
+                    book.setFavoriteCount(null);
+                }
+                consumer.accept(book);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * 按收藏量排序逐条处理全部图书
+     * 每次从排行中取一批ID加载，下一批从上一批最后一本图书的排序键之后开始，
+     * 处理期间收藏数发生变化的图书可能重复或缺失，不会错位整批
+     */
+    @Override
+    public void streamBooksByFavoriteCount(String sortType, Consumer<Book> consumer) {
+        boolean asc = "asc".equalsIgnoreCase(sortType);
+        long position = 0;
+        while (true) {
+            List<Long> ids = favoriteLeaderboard.range(asc, position, LOAD_BATCH_SIZE);
+            if (ids.isEmpty()) {
+                return;
+            }
+            List<Book> books = listByIdsInOrder(ids);
+            books.forEach(consumer);
+            if (books.isEmpty()) {
+                // 整批图书都已被删除，按排名继续
+                position += ids.size();
+                continue;
+            }
+            Book last = books.get(books.size() - 1);
+            long next = favoriteLeaderboard.positionAfter(asc, favoriteCountOf(last), last.getId());
+            // 数据库中的收藏数与排行不一致（另一个事务尚未提交）时可能定位到当前批之前，此时按排名继续
+            position = next > position ? next : position + ids.size();
+        }
+    }
+
+    /**
+     * 分页获取图书列表
+     * 无查询条件时直接由数据库分页（按ID升序）；有查询条件时从索引结果中截取当前页再加载
+     */
+    @Override
+    public IPage<Book> pageBooks(String query, long page, long size) {
+        long current = Math.max(page, 1);
+        long pageSize = clampPageSize(size);
+        
+        if (!StringUtils.hasText(query)) {
+            LambdaQueryWrapper<Book> wrapper = new LambdaQueryWrapper<>();
+            wrapper.orderByAsc(Book::getId);
+            return page(new Page<>(current, pageSize), wrapper);
+        }
+        
+        return pageOfIds(searchIds(BookQueryCache.normalize(query)), current, pageSize);
+    }
+    
+    /**
+     * 游标分页获取图书列表
+     * 无查询条件时游标为最后一条的ID，按 id > cursor 查询；
+     * 有查询条件时游标格式为"位置_ID"，在缓存的检索结果中按位置定位后截取下一页
+     */
+    @Override
+    public CursorPage<Book> listBooksAfter(String query, String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        if (StringUtils.hasText(query)) {
+            return idsAfter(searchIds(BookQueryCache.normalize(query)), cursor, pageSize);
+        }
+        
+        Long lastId = StringUtils.hasText(cursor) ? parseCursorId(cursor) : null;
+        LambdaQueryWrapper<Book> wrapper = new LambdaQueryWrapper<>();
+        wrapper.gt(lastId != null, Book::getId, lastId)
+               .orderByAsc(Book::getId)
+               .last("LIMIT " + pageSize);
+        List<Book> books = list(wrapper);
+        
+        String nextCursor = null;
+        if (books.size() == pageSize) {
+            nextCursor = String.valueOf(books.get(books.size() - 1).getId());
+        }
+        return new CursorPage<>(books, nextCursor);
+    }
+    
+    /**
+     * 按收藏量排序分页获取图书列表
+     * 无查询条件时从收藏量排行中按排名截取当前页；有查询条件时从缓存的ID列表中截取当前页再加载
+     */
+    @Override
+    public IPage<Book> pageBooksByFavoriteCount(String query, String sortType, long page, long size) {
+        long current = Math.max(page, 1);
+        long pageSize = clampPageSize(size);
+        boolean asc = "asc".equalsIgnoreCase(sortType);
+        
+        if (StringUtils.hasText(query)) {
+            return pageOfIds(favoriteSortIds(BookQueryCache.normalize(query), asc), current, pageSize);
+        }
+        Page<Book> result = new Page<>(current, pageSize, favoriteLeaderboard.size());
+        result.setRecords(listByIdsInOrder(favoriteLeaderboard.range(asc, (current - 1) * pageSize, (int) pageSize)));
+        return result;
+    }
+    
+    /**
+     * 按收藏量排序游标分页获取图书列表
+     * 无查询条件时游标格式为"收藏量_ID"，对应上一页最后一条记录的排序键，在收藏量排行中定位后截取下一页；
+     * 有查询条件时游标格式为"位置_ID"，在缓存的ID列表中按位置定位后截取下一页
+     */
+    @Override
+    public CursorPage<Book> listBooksByFavoriteCountAfter(String query, String sortType, String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        boolean asc = "asc".equalsIgnoreCase(sortType);
+        
+        if (StringUtils.hasText(query)) {
+            return idsAfter(favoriteSortIds(BookQueryCache.normalize(query), asc), cursor, pageSize);
+        }
+        
+        long position = 0;
+        if (StringUtils.hasText(cursor)) {
+            int separator = cursor.indexOf('_');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("游标格式错误");
+            }
+            int cursorCount;
+            try {
+                cursorCount = Integer.parseInt(cursor.substring(0, separator));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("游标格式错误");
+            }
+            position = favoriteLeaderboard.positionAfter(asc, cursorCount, parseCursorId(cursor.substring(separator + 1)));
+        }
+        
+        List<Book> books = listByIdsInOrder(favoriteLeaderboard.range(asc, position, pageSize));
+        
+        String nextCursor = null;
+        if (books.size() == pageSize) {
+            Book last = books.get(books.size() - 1);
+            nextCursor = favoriteCountOf(last) + "_" + last.getId();
+        }
+        return new CursorPage<>(books, nextCursor);
+    }
+    
+    /**
+     * 搜索框输入提示，由内存前缀树直接返回，不访问数据库
+     */
+    @Override
+    public List<Suggestion> suggest(String prefix, int limit) {
+        if (!StringUtils.hasText(prefix)) {
+            return new ArrayList<>();
+        }
+        return bookSuggestIndex.suggest(prefix, Math.min(Math.max(limit, 1), BookSuggestIndex.MAX_SUGGESTIONS));
+    }
+    
+    /**
+     * 分面统计，由内存列式快照计算；有查询条件时只统计检索命中的图书
+     */
+    @Override
+    public BookFacets facets(String query) {
+        String normalized = BookQueryCache.normalize(query);
+        if (normalized.isEmpty()) {
+            return bookFacetIndex.facets(null);
+        }
+        return bookFacetIndex.facets(searchIds(normalized));
+    }
+    
+    /**
+     * 按规范化的查询词检索图书ID，按更新时间倒序
+     * 检索方式由 bookstore.search.backend 决定，两种方式结果一致
+     */
+    private List<Long> searchIds(String normalizedQuery) {
+        return bookQueryCache.get(normalizedQuery, BookQueryCache.SORT_DEFAULT,
+                () -> "sql".equals(searchBackend)
+                        ? sqlBookSearch.search(normalizedQuery)
+                        : bookSearchIndex.search(normalizedQuery),
+                ids -> ids);
+    }
+    
+    /**
+     * 按规范化的查询词检索图书ID，按收藏量排序，收藏量相同按ID升序
+     * 收藏数变化后缓存条目只重新排序，不重新检索
+     */
+    private List<Long> favoriteSortIds(String normalizedQuery, boolean asc) {
+        return bookQueryCache.get(normalizedQuery, asc ? "asc" : "desc",
+                () -> sqlBookSearch.favoriteSortIds(normalizedQuery, asc),
+                ids -> sortByFavoriteCount(ids, asc));
+    }
+    
+    /**
+     * 按当前收藏量对ID列表重新排序，已删除的图书会被去掉
+     */
+    private List<Long> sortByFavoriteCount(List<Long> ids, boolean asc) {
+        Map<Long, Integer> counts = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += LOAD_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + LOAD_BATCH_SIZE, ids.size()));
+            for (Book book : baseMapper.selectFavoriteCounts(batch)) {
+                counts.put(book.getId(), book.getFavoriteCount() == null ? 0 : book.getFavoriteCount());
+            }
+        }
+        
+        Comparator<Long> byCount = Comparator.comparing(counts::get);
+        if (!asc) {
+            byCount = byCount.reversed();
+        }
+        return ids.stream()
+                .filter(counts::containsKey)
+                .sorted(byCount.thenComparing(Comparator.naturalOrder()))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 从有序ID列表中截取一页并加载
+     */
+    private Page<Book> pageOfIds(List<Long> ids, long current, long pageSize) {
+        Page<Book> result = new Page<>(current, pageSize, ids.size());
+        long from = (current - 1) * pageSize;
+        if (from < ids.size()) {
+            int to = (int) Math.min(from + pageSize, ids.size());
+            result.setRecords(listByIdsInOrder(ids.subList((int) from, to)));
+        }
+        return result;
+    }
+    
+    /**
+     * 从有序ID列表中截取游标之后的一页并加载
+     * 游标为"位置_ID"，对应上一页最后一条在列表中的下标和ID；列表未变化时按下标直接定位，
+     * 列表在两页之间被重新加载或重排时按ID查找；图书已不在结果中（被删除或修改）时抛出异常，与已到末尾区分
+     */
+    private CursorPage<Book> idsAfter(List<Long> ids, String cursor, int pageSize) {
+        int from = StringUtils.hasText(cursor) ? positionAfter(ids, cursor) : 0;
+        int to = Math.min(from + pageSize, ids.size());
+        List<Book> books = listByIdsInOrder(ids.subList(from, to));
+        String nextCursor = to < ids.size() ? (to - 1) + "_" + ids.get(to - 1) : null;
+        return new CursorPage<>(books, nextCursor);
+    }
+    
+    /**
+     * 游标之后第一条在列表中的下标
+     */
+    private static int positionAfter(List<Long> ids, String cursor) {
+        int separator = cursor.indexOf('_');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("游标格式错误");
+        }
+        int position;
+        try {
+            position = Integer.parseInt(cursor.substring(0, separator));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("游标格式错误");
+        }
+        Long lastId = parseCursorId(cursor.substring(separator + 1));
+        if (position >= 0 && position < ids.size() && lastId.equals(ids.get(position))) {
+            return position + 1;
+        }
+        int found = ids.indexOf(lastId);
+        if (found < 0) {
+            throw new IllegalArgumentException("游标对应的图书已不在结果中，请从第一页重新获取");
+        }
+        return found + 1;
+    }
+    
+    /**
+     * 合并并发的相同查询
+     * 当前处于事务中时直接执行，事务内可能读到未提交的数据，不能与其他请求共享
+     */
+    private <V> V coalesce(String key, Supplier<V> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.get();
+        }
+        return singleFlight.execute(key, loader);
+    }
+    
+    /**
+     * 图书写入后的索引和缓存维护
+     * 立即按当前连接的数据刷新索引、失效相关缓存；事务结束时再失效一次，
+     * 避免其他请求在提交前读到旧数据并写回缓存；若事务回滚，则标记索引失效，下次查询前重新加载。
+     * 目录版本号同样在写入时和事务结束时各递增一次，收藏量排行、输入提示和分面统计的处理与索引相同
+     */
+    private void afterBookWrite(Long bookId) {
+        Book current = baseMapper.selectById(bookId);
+        bookSearchIndex.refresh(bookId, current);
+        sqlBookSearch.refresh(bookId, current);
+        favoriteLeaderboard.refresh(bookId, current);
+        bookSuggestIndex.refresh(bookId, current);
+        bookFacetIndex.refresh(bookId, current);
+        bookCache.invalidate(bookId);
+        bookQueryCache.invalidateBook(bookId, current);
+        catalogVersion.increment();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bookCache.invalidate(bookId);
+                    catalogVersion.increment();
+                    if (status == STATUS_ROLLED_BACK) {
+                        bookSearchIndex.markStale(bookId);
+                        favoriteLeaderboard.markStale(bookId);
+                        bookSuggestIndex.markStale(bookId);
+                        bookFacetIndex.markStale(bookId);
+                        // 回滚后无法确定图书原来的字段，清空查询缓存
+                        bookQueryCache.invalidateAll();
+                    } else {
+                        // 事务进行中可能发生过全量加载，读到的是提交前的数据，提交后再更新一次
+                        bookSearchIndex.refresh(bookId, current);
+                        sqlBookSearch.refresh(bookId, current);
+                        favoriteLeaderboard.refresh(bookId, current);
+                        bookSuggestIndex.refresh(bookId, current);
+                        bookFacetIndex.refresh(bookId, current);
+                        bookQueryCache.invalidateBook(bookId, current);
+                    }
                 }
-                
-                // 多字段匹配
-                String lowerQuery = query.toLowerCase();
-                boolean nameMatch = book.getName() != null && book.getName().toLowerCase().contains(lowerQuery);
-                boolean authorMatch = book.getAuthor() != null && book.getAuthor().toLowerCase().contains(lowerQuery);
-                boolean categoryMatch = book.getCategory() != null && book.getCategory().toLowerCase().contains(lowerQuery);
-                boolean descMatch = book.getDescription() != null && book.getDescription().toLowerCase().contains(lowerQuery);
-                
-                return nameMatch || authorMatch || categoryMatch || descMatch;
-            })
-            // 按收藏量排序
-            .sorted((b1, b2) -> {
-                int count1 = b1.getFavoriteCount() == null ? 0 : b1.getFavoriteCount();
-                int count2 = b2.getFavoriteCount() == null ? 0 : b2.getFavoriteCount();
-                
-                // 根据排序类型决定升序或降序
-                if ("asc".equalsIgnoreCase(sortType)) {
-                    return Integer.compare(count1, count2);
-                } else {
-                    return Integer.compare(count2, count1);
+            });
+        }
+    }
+    
+    /**
+     * 收藏数变化后的缓存维护，收藏数不参与检索，无需刷新索引，查询缓存只需重排
+     * 收藏量排行在事务内按变化量更新，事务结束后确认；不在事务中时无法判断是否与全量加载重叠，只标记失效。
+     * 输入提示的排序和分面统计的收藏量之和允许短暂滞后，只标记失效，下一次使用前批量重新读取
+     * @param delta 收藏数变化量
+     */
+    private void afterFavoriteCountChange(Long bookId, int delta) {
+        bookCache.invalidate(bookId);
+        bookQueryCache.markFavoriteCountChanged(bookId);
+        catalogVersion.increment();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            long epoch = favoriteLeaderboard.add(bookId, delta);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    favoriteLeaderboard.afterCompletion(bookId, epoch, status == STATUS_COMMITTED);
+                    bookSuggestIndex.markStale(bookId);
+                    bookFacetIndex.markStale(bookId);
+                    bookCache.invalidate(bookId);
+                    bookQueryCache.markFavoriteCountChanged(bookId);
+                    catalogVersion.increment();
                 }
-            })
-            .collect(Collectors.toList());
+            });
+        } else {
+            favoriteLeaderboard.markStale(bookId);
+            bookSuggestIndex.markStale(bookId);
+            bookFacetIndex.markStale(bookId);
+        }
+    }
+    
+    private static int favoriteCountOf(Book book) {
+        return book.getFavoriteCount() == null ? 0 : book.getFavoriteCount();
+    }
+
+    /**
+     * 按给定ID顺序加载图书，分批查询，已不存在的图书会被跳过
+     */
+    private List<Book> listByIdsInOrder(List<Long> ids) {
+        List<Book> books = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += LOAD_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + LOAD_BATCH_SIZE, ids.size()));
+            Map<Long, Book> byId = new HashMap<>(batch.size() * 2);
+            for (Book book : listByIds(batch)) {
+                byId.put(book.getId(), book);
+            }
+            for (Long id : batch) {
+                Book book = byId.get(id);
+                if (book != null) {
+                    books.add(book);
+                }
+            }
+        }
+        return books;
+    }
+    
+    private static int clampPageSize(long size) {
+        if (size < 1) {
+            return 1;
+        }
+        return (int) Math.min(size, MAX_PAGE_SIZE);
+    }
+    
+    private static Long parseCursorId(String cursor) {
+        try {
+            return Long.valueOf(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("游标格式错误");
+        }
     }
-} 
\ No newline at end of file
+}
@@ -1,29 +1,43 @@
 package com.bookstore.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.bookstore.cache.UserFavoriteCache;
 import com.bookstore.entity.Book;
 import com.bookstore.entity.Favorite;
-import com.bookstore.mapper.BookMapper;
 import com.bookstore.mapper.FavoriteMapper;
 import com.bookstore.service.BookService;
 import com.bookstore.service.FavoriteService;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> implements FavoriteService {
 
+    /** 分页查询单页最大条数 */
+    private static final long MAX_PAGE_SIZE = 100;
+
     @Autowired
-    private BookMapper bookMapper;
+    private BookService bookService;
     
     @Autowired
-    private BookService bookService;
+    private UserFavoriteCache userFavoriteCache;
     
     @Override
     @Transactional
@@ -41,6 +55,7 @@ public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> i
         if (success) {
             // 增加图书收藏数
             bookService.incrementFavoriteCount(bookId);
+            afterFavoriteChange(userId, bookId, true);
         }
         return success;
     }
@@ -55,56 +70,101 @@ public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> i
         if (success) {
             // 减少图书收藏数
             bookService.decrementFavoriteCount(bookId);
+            afterFavoriteChange(userId, bookId, false);
         }
         return success;
     }
     
     @Override
     public boolean isFavorite(Long userId, Long bookId) {
-        // 构建查询条件
-        LambdaQueryWrapper<Favorite> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Favorite::getUserId, userId)
-               .eq(Favorite::getBookId, bookId);
-        
-        // 统计结果
-        return count(wrapper) > 0;
+        if (userId == null || bookId == null) {
+            return false;
+        }
+        // 从用户收藏集合中判断，集合首次使用时从数据库加载
+        return userFavoriteCache.contains(userId, bookId, this::loadFavoriteBookIds);
     }
     
     @Override
-    public List<Book> getAllUserFavorites(Long userId) {
-        // 查询用户所有收藏记录
-        LambdaQueryWrapper<Favorite> favoriteWrapper = new LambdaQueryWrapper<>();
-        favoriteWrapper.eq(Favorite::getUserId, userId)
-                      .orderByDesc(Favorite::getCreateTime);
-        
-        List<Favorite> favorites = list(favoriteWrapper);
-        
-        // 如果没有收藏记录，返回空列表
-        if (favorites.isEmpty()) {
+    public List<Long> filterFavorites(Long userId, Collection<Long> bookIds) {
+        if (userId == null || bookIds == null || bookIds.isEmpty()) {
             return new ArrayList<>();
         }
-        
-        // 提取所有收藏的图书ID
-        List<Long> bookIds = favorites.stream()
-                                    .map(Favorite::getBookId)
-                                    .collect(Collectors.toList());
-        
-        // 查询所有收藏的图书
-        LambdaQueryWrapper<Book> bookWrapper = new LambdaQueryWrapper<>();
-        bookWrapper.in(Book::getId, bookIds);
-        List<Book> books = bookMapper.selectList(bookWrapper);
-        
-        // 维护原始顺序
-        List<Book> orderedBooks = new ArrayList<>(books.size());
-        for (Long bookId : bookIds) {
-            for (Book book : books) {
-                if (book.getId().equals(bookId)) {
-                    orderedBooks.add(book);
-                    break;
+        // 从用户收藏集合中过滤，集合未加载时只查询一次数据库
+        long[] favorited = userFavoriteCache.get(userId, this::loadFavoriteBookIds);
+        return bookIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(id -> Arrays.binarySearch(favorited, id) >= 0)
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    public List<Book> getAllUserFavorites(Long userId) {
+        // 收藏表关联图书表一次查出，顺序由SQL保证
+        return baseMapper.selectUserFavoriteBooks(userId);
+    }
+    
+    @Override
+    public IPage<Book> pageUserFavorites(Long userId, long page, long size) {
+        Page<Book> pageParam = new Page<>(Math.max(page, 1), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        return baseMapper.selectUserFavoriteBookPage(pageParam, userId);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public void streamUserFavorites(Long userId, Consumer<Book> consumer) {
+        // 游标需要在事务内保持连接，遍历完成后关闭
+        try (Cursor<Book> cursor = baseMapper.streamUserFavoriteBooks(userId)) {
+            for (Book book : cursor) {
+                consumer.accept(book);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * 从数据库加载用户收藏的全部图书ID
+     */
+    private long[] loadFavoriteBookIds(Long userId) {
+        LambdaQueryWrapper<Favorite> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(Favorite::getBookId)
+               .eq(Favorite::getUserId, userId);
+        return list(wrapper).stream()
+                .map(Favorite::getBookId)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+    
+    /**
+     * 收藏变化后维护用户收藏集合
+     * 提交前只丢弃该用户的集合，其他请求不会读到未提交的变化，本事务后续判断从数据库重新加载；
+     * 提交后再增删，覆盖提交前其他请求从数据库加载的旧集合；回滚时丢弃该用户的集合，下次访问重新加载
+     */
+    private void afterFavoriteChange(Long userId, Long bookId, boolean added) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyFavoriteChange(userId, bookId, added);
+            return;
+        }
+        userFavoriteCache.invalidate(userId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    applyFavoriteChange(userId, bookId, added);
+                } else {
+                    userFavoriteCache.invalidate(userId);
                 }
             }
+        });
+    }
+    
+    private void applyFavoriteChange(Long userId, Long bookId, boolean added) {
+        if (added) {
+            userFavoriteCache.add(userId, bookId);
+        } else {
+            userFavoriteCache.remove(userId, bookId);
         }
-        
-        return orderedBooks;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,40 @@
+-- 压测用内嵌数据库表结构（H2 MySQL 兼容模式），与线上 MySQL 表结构保持一致
+DROP TABLE IF EXISTS favorite;
+DROP TABLE IF EXISTS book;
+DROP TABLE IF EXISTS user;
+
+CREATE TABLE user (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    username    VARCHAR(50)  NOT NULL,
+    password    VARCHAR(100) NOT NULL,
+    status      INT          DEFAULT 1,
+    create_time DATETIME     DEFAULT CURRENT_TIMESTAMP,
+    update_time DATETIME     DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    CONSTRAINT uk_user_username UNIQUE (username)
+);
+
+CREATE TABLE book (
+    id             BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name           VARCHAR(200) NOT NULL,
+    author         VARCHAR(100),
+    category       VARCHAR(50),
+    price          DECIMAL(10, 2),
+    description    VARCHAR(1000),
+    favorite_count INT      DEFAULT 0,
+    create_time    DATETIME DEFAULT CURRENT_TIMESTAMP,
+    update_time    DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE TABLE favorite (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id     BIGINT NOT NULL,
+    book_id     BIGINT NOT NULL,
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_favorite_user_book UNIQUE (user_id, book_id)
+);
+
+CREATE INDEX idx_favorite_user_time ON favorite (user_id, create_time);
+CREATE INDEX idx_favorite_book ON favorite (book_id);
+
+-- 增量导出按更新时间过滤
+CREATE INDEX idx_book_update_time ON book (update_time);
@@ -0,0 +1,3 @@
+-- 增量导出（GET /books/export?updatedSince=）按更新时间过滤使用的索引，MySQL 8.0，手动执行一次
+-- 与 schema-h2.sql 中的 idx_book_update_time 相同
+ALTER TABLE book ADD INDEX idx_book_update_time (update_time);
@@ -0,0 +1,99 @@
+package com.bookstore.bulk;
+
+import com.bookstore.entity.Book;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 导出数据写出测试 ====================
+ * 校验 CSV 的转义和列名（导出结果可以被导入读取），以及 NDJSON 每行一个完整的 JSON 对象。
+ */
+@DisplayName("导出数据写出测试")
+public class BookExportWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final List<Book> books = List.of(
+            book(1L, "Java编程思想", "Bruce Eckel", "108.00", "经典"),
+            book(2L, "Effective \"Java\"", "Bloch, Joshua", null, "第一行\n第二行"));
+
+    /** EX01: 含逗号、引号、换行的字段加引号转义，空值写为空字段，导出的 CSV 可以原样导入 */
+    @Test
+    @DisplayName("EX01: CSV 转义与重新导入")
+    public void testCsv_EX01_escapeAndReimport() throws IOException {
+        String csv = write(BookDataFormat.CSV);
+
+        String[] lines = csv.split("\n");
+        assertEquals(BookExportWriter.CSV_HEADER, lines[0]);
+        assertEquals("1,Java编程思想,Bruce Eckel,编程,108.00,经典,5,2024-03-01T10:00:00,2024-03-02T08:30:00", lines[1]);
+        assertTrue(csv.contains("2,\"Effective \"\"Java\"\"\",\"Bloch, Joshua\",编程,,\"第一行\n第二行\",5,"));
+
+        BookImportReader reader = new BookImportReader(new StringReader(csv), BookDataFormat.CSV, objectMapper);
+        for (Book expected : books) {
+            Book imported = reader.next().book();
+            assertEquals(expected.getName(), imported.getName());
+            assertEquals(expected.getAuthor(), imported.getAuthor());
+            assertEquals(expected.getPrice(), imported.getPrice());
+            assertEquals(expected.getDescription(), imported.getDescription());
+        }
+        assertNull(reader.next());
+    }
+
+    /** EX02: NDJSON 每行一本图书，包含全部字段 */
+    @Test
+    @DisplayName("EX02: NDJSON 每行一个对象")
+    public void testNdjson_EX02_oneObjectPerLine() throws IOException {
+        String ndjson = write(BookDataFormat.NDJSON);
+
+        String[] lines = ndjson.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(ndjson.endsWith("\n"));
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1, first.get("id").asLong());
+        assertEquals("经典", first.get("description").asText());
+        assertEquals("2024-03-02T08:30:00", first.get("updateTime").asText());
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals("第一行\n第二行", second.get("description").asText());
+        assertTrue(second.get("price").isNull());
+    }
+
+    private String write(BookDataFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BookExportWriter writer = new BookExportWriter(out, format, objectMapper);
+        for (Book book : books) {
+            writer.write(book);
+        }
+        writer.flush();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Book book(Long id, String name, String author, String price, String description) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName(name);
+        book.setAuthor(author);
+        book.setCategory("编程");
+        book.setPrice(price == null ? null : new BigDecimal(price));
+        book.setDescription(description);
+        book.setFavoriteCount(5);
+        book.setCreateTime(LocalDateTime.of(2024, 3, 1, 10, 0));
+        book.setUpdateTime(LocalDateTime.of(2024, 3, 2, 8, 30));
+        return book;
+    }
+}
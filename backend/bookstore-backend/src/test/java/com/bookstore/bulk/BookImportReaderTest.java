@@ -0,0 +1,111 @@
+package com.bookstore.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 导入数据读取测试 ====================
+ * 校验 CSV 的引号、跨行字段和列名映射，NDJSON 的逐行解析，以及出错行的行号和错误信息。
+ */
+@DisplayName("导入数据读取测试")
+public class BookImportReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /** IR01: CSV 字段可含逗号、引号和换行，列顺序任意，空行跳过，出错的行不影响后续行 */
+    @Test
+    @DisplayName("IR01: CSV 解析与校验")
+    public void testCsv_IR01_parseAndValidate() throws IOException {
+        String csv = "\uFEFFid,Author,name,price,category,description\r\n"
+                + "1,Bruce Eckel,Java编程思想,108.00,编程,经典\r\n"
+                + "\r\n"
+                + "2,\"Bloch, Joshua\",\"Effective \"\"Java\"\"\",89.5,编程,\"第一行\n第二行\"\r\n"
+                + "3,佚名,,10,,\n"
+                + "4,佚名,价格错误,abc,,\n"
+                + "5,佚名,三位小数,1.234,,\n"
+                + "6,刘慈欣,三体,,科幻";
+
+        List<BookImportReader.Row> rows = readAll(csv, BookDataFormat.CSV);
+        assertEquals(6, rows.size());
+
+        assertEquals("Java编程思想", rows.get(0).book().getName());
+        assertEquals("Bruce Eckel", rows.get(0).book().getAuthor());
+        assertEquals(new BigDecimal("108.00"), rows.get(0).book().getPrice());
+        assertEquals(0, rows.get(0).book().getFavoriteCount());
+
+        BookImportReader.Row quoted = rows.get(1);
+        assertEquals(4, quoted.line());
+        assertEquals("Effective \"Java\"", quoted.book().getName());
+        assertEquals("Bloch, Joshua", quoted.book().getAuthor());
+        assertEquals(new BigDecimal("89.50"), quoted.book().getPrice());
+        assertEquals("第一行\n第二行", quoted.book().getDescription());
+
+        assertEquals(6, rows.get(2).line());
+        assertEquals("书名不能为空", rows.get(2).error());
+        assertEquals(7, rows.get(3).line());
+        assertTrue(rows.get(3).error().startsWith("价格格式错误"));
+        assertTrue(rows.get(4).error().startsWith("价格最多两位小数"));
+
+        // 最后一行没有换行符，价格为空
+        assertEquals(9, rows.get(5).line());
+        assertEquals("科幻", rows.get(5).book().getCategory());
+        assertNull(rows.get(5).book().getPrice());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> readAll("title,author\n三体,刘慈欣\n", BookDataFormat.CSV));
+    }
+
+    /** IR02: NDJSON 每行一个对象，价格可以是数字或字符串，格式错误的行单独报错 */
+    @Test
+    @DisplayName("IR02: NDJSON 解析与校验")
+    public void testNdjson_IR02_parseAndValidate() throws IOException {
+        String ndjson = "{\"name\":\"三体\",\"author\":\"刘慈欣\",\"price\":23.5,\"favoriteCount\":99}\n"
+                + "\n"
+                + "{\"name\":\"活着\",\"price\":\"20\"}\n"
+                + "{\"name\":\"缺少括号\"\n"
+                + "[1,2]\n"
+                + "{\"name\":{\"zh\":\"嵌套\"}}\n"
+                + "{\"name\":\"" + "长".repeat(201) + "\"}\n"
+                + "{\"name\":\"" + "超长".repeat(BookImportReader.MAX_LINE_CHARS) + "\"}\n"
+                + "{\"name\":\"最后一行\"}";
+
+        List<BookImportReader.Row> rows = readAll(ndjson, BookDataFormat.NDJSON);
+        assertEquals(8, rows.size());
+
+        assertEquals("三体", rows.get(0).book().getName());
+        assertEquals(new BigDecimal("23.50"), rows.get(0).book().getPrice());
+        // 收藏数不从导入数据读取
+        assertEquals(0, rows.get(0).book().getFavoriteCount());
+
+        assertEquals(3, rows.get(1).line());
+        assertEquals(new BigDecimal("20.00"), rows.get(1).book().getPrice());
+
+        assertEquals("JSON 格式错误", rows.get(2).error());
+        assertEquals("每行应为一个 JSON 对象", rows.get(3).error());
+        assertEquals("name 应为字符串或数字", rows.get(4).error());
+        assertEquals("name 超过 200 个字符", rows.get(5).error());
+        assertTrue(rows.get(6).error().startsWith("行超过"));
+
+        assertEquals(9, rows.get(7).line());
+        assertEquals("最后一行", rows.get(7).book().getName());
+    }
+
+    private List<BookImportReader.Row> readAll(String input, BookDataFormat format) throws IOException {
+        BookImportReader reader = new BookImportReader(new StringReader(input), format, objectMapper);
+        List<BookImportReader.Row> rows = new ArrayList<>();
+        BookImportReader.Row row;
+        while ((row = reader.next()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,60 @@
+package com.bookstore.cache;
+
+import com.bookstore.entity.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 图书详情缓存测试 ====================
+ * 校验加载期间图书被失效时不缓存加载结果。
+ */
+@DisplayName("图书详情缓存测试")
+public class BookCacheTest {
+
+    private BookCache bookCache;
+
+    @BeforeEach
+    public void setUp() {
+        bookCache = new BookCache();
+        ReflectionTestUtils.setField(bookCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(bookCache, "ttlSeconds", 300L);
+        bookCache.init();
+    }
+
+    /** BC01: 加载期间没有失效时缓存加载结果 */
+    @Test
+    @DisplayName("BC01: 正常加载后缓存")
+    public void testPut_BC01_cached() {
+        Book book = book(1L);
+        assertTrue(bookCache.put(book, bookCache.version(1L)));
+        assertSame(book, bookCache.get(1L));
+    }
+
+    /** BC02: 加载期间图书被失效（单本或全部），加载到的旧数据不进入缓存，其他图书不受影响 */
+    @Test
+    @DisplayName("BC02: 加载期间失效时不缓存")
+    public void testPut_BC02_invalidatedDuringLoad() {
+        long version = bookCache.version(1L);
+        long otherVersion = bookCache.version(2L);
+        bookCache.invalidate(1L);
+        assertFalse(bookCache.put(book(1L), version));
+        assertNull(bookCache.get(1L));
+        assertTrue(bookCache.put(book(2L), otherVersion));
+
+        version = bookCache.version(1L);
+        bookCache.invalidateAll();
+        assertFalse(bookCache.put(book(1L), version));
+        assertNull(bookCache.get(1L));
+    }
+
+    private static Book book(Long id) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName("图书" + id);
+        return book;
+    }
+}
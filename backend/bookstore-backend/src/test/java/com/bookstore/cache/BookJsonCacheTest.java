@@ -0,0 +1,86 @@
+package com.bookstore.cache;
+
+import com.bookstore.dto.JsonFragment;
+import com.bookstore.entity.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 图书列表 JSON 片段缓存测试 ====================
+ * 校验片段不含描述、图书未变化时复用、列表字段变化时重新生成。
+ */
+@DisplayName("图书列表 JSON 片段缓存测试")
+public class BookJsonCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private BookJsonCache bookJsonCache;
+
+    @BeforeEach
+    public void setUp() {
+        bookJsonCache = new BookJsonCache();
+        ReflectionTestUtils.setField(bookJsonCache, "maxBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(bookJsonCache, "objectMapper", objectMapper);
+        bookJsonCache.init();
+    }
+
+    /** BJ01: 片段为不含描述的图书 JSON，嵌入列表后仍是合法 JSON */
+    @Test
+    @DisplayName("BJ01: 片段不含描述")
+    public void testToJson_BJ01_withoutDescription() throws Exception {
+        String json = objectMapper.writeValueAsString(Map.of("list", bookJsonCache.toJson(List.of(book()))));
+
+        Map<?, ?> item = (Map<?, ?>) ((List<?>) objectMapper.readValue(json, Map.class).get("list")).get(0);
+        assertEquals(1, item.get("id"));
+        assertEquals("三体", item.get("name"));
+        assertFalse(item.containsKey("description"));
+    }
+
+    /** BJ02: 图书未变化时复用片段，描述变化不影响列表片段 */
+    @Test
+    @DisplayName("BJ02: 未变化时复用")
+    public void testToJson_BJ02_reuse() {
+        JsonFragment first = bookJsonCache.toJson(book());
+        Book same = book();
+        same.setDescription("另一段描述");
+
+        assertSame(first, bookJsonCache.toJson(same));
+    }
+
+    /** BJ03: 收藏数变化后重新生成片段 */
+    @Test
+    @DisplayName("BJ03: 字段变化时重新生成")
+    public void testToJson_BJ03_changed() {
+        JsonFragment first = bookJsonCache.toJson(book());
+        Book changed = book();
+        changed.setFavoriteCount(6);
+
+        JsonFragment second = bookJsonCache.toJson(changed);
+        assertNotSame(first, second);
+        assertTrue(second.json().contains("\"favoriteCount\":6"));
+    }
+
+    private static Book book() {
+        Book book = new Book();
+        book.setId(1L);
+        book.setName("三体");
+        book.setAuthor("刘慈欣");
+        book.setCategory("科幻");
+        book.setPrice(new BigDecimal("23.00"));
+        book.setDescription("地球文明与三体文明的故事");
+        book.setFavoriteCount(5);
+        return book;
+    }
+}
@@ -0,0 +1,105 @@
+package com.bookstore.cache;
+
+import com.bookstore.entity.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 查询结果缓存测试 ====================
+ * 校验加载期间的失效、收藏数变化的重排标记以及按规范化字段的失效匹配。
+ */
+@DisplayName("查询结果缓存测试")
+public class BookQueryCacheTest {
+
+    private BookQueryCache queryCache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final AtomicInteger reorders = new AtomicInteger();
+
+    private final Function<List<Long>, List<Long>> reverse = ids -> {
+        reorders.incrementAndGet();
+        List<Long> reversed = new ArrayList<>(ids);
+        Collections.reverse(reversed);
+        return reversed;
+    };
+
+    @BeforeEach
+    public void setUp() {
+        queryCache = new BookQueryCache();
+        ReflectionTestUtils.setField(queryCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(queryCache, "ttlSeconds", 60L);
+        queryCache.init();
+    }
+
+    /** QC01: 加载期间有图书被失效，本次结果照常返回但不进入缓存 */
+    @Test
+    @DisplayName("QC01: 加载期间失效时不缓存")
+    public void testGet_QC01_invalidatedDuringLoad() {
+        List<Long> ids = queryCache.get("java", BookQueryCache.SORT_DEFAULT, () -> {
+            loads.incrementAndGet();
+            queryCache.invalidateBook(9L, null);
+            return List.of(1L, 2L);
+        }, reverse);
+        assertEquals(List.of(1L, 2L), ids);
+
+        queryCache.get("java", BookQueryCache.SORT_DEFAULT, this::load, reverse);
+        queryCache.get("java", BookQueryCache.SORT_DEFAULT, this::load, reverse);
+        assertEquals(2, loads.get());
+    }
+
+    /** QC02: 只有包含该图书的按收藏量排序条目被标记重排，加载期间的收藏数变化同样生效 */
+    @Test
+    @DisplayName("QC02: 收藏数变化只重排相关条目")
+    public void testMarkFavoriteCountChanged_QC02_reorder() {
+        queryCache.get("java", "desc", this::load, reverse);
+        queryCache.get("java", BookQueryCache.SORT_DEFAULT, this::load, reverse);
+
+        queryCache.markFavoriteCountChanged(3L);
+        assertEquals(List.of(1L, 2L), queryCache.get("java", "desc", this::load, reverse));
+        assertEquals(0, reorders.get());
+
+        queryCache.markFavoriteCountChanged(2L);
+        assertEquals(List.of(2L, 1L), queryCache.get("java", "desc", this::load, reverse));
+        assertEquals(List.of(1L, 2L), queryCache.get("java", BookQueryCache.SORT_DEFAULT, this::load, reverse));
+        assertEquals(1, reorders.get());
+
+        queryCache.get("python", "asc", () -> {
+            queryCache.markFavoriteCountChanged(7L);
+            return List.of(7L, 8L);
+        }, reverse);
+        assertEquals(List.of(8L, 7L), queryCache.get("python", "asc", this::load, reverse));
+        assertEquals(2, loads.get());
+    }
+
+    /** QC03: 图书字段按查询词同样的方式规范化后匹配（全角、大小写） */
+    @Test
+    @DisplayName("QC03: 按规范化字段失效")
+    public void testInvalidateBook_QC03_normalizedMatch() {
+        queryCache.get("java", BookQueryCache.SORT_DEFAULT, this::load, reverse);
+        queryCache.get("go", BookQueryCache.SORT_DEFAULT, this::load, reverse);
+        Book book = new Book();
+        book.setId(5L);
+        book.setName("ＪＡＶＡ编程");
+        queryCache.invalidateBook(5L, book);
+
+        queryCache.get("java", BookQueryCache.SORT_DEFAULT, this::load, reverse);
+        queryCache.get("go", BookQueryCache.SORT_DEFAULT, this::load, reverse);
+        assertEquals(3, loads.get());
+    }
+
+    private List<Long> load() {
+        loads.incrementAndGet();
+        return List.of(1L, 2L);
+    }
+}
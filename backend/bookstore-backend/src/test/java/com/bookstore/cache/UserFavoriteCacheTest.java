@@ -0,0 +1,70 @@
+package com.bookstore.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 用户收藏集合缓存测试 ====================
+ * 校验集合的懒加载、增删维护以及按内存上限淘汰。
+ */
+@DisplayName("用户收藏集合缓存测试")
+public class UserFavoriteCacheTest {
+
+    private UserFavoriteCache userFavoriteCache;
+
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void setUp() {
+        userFavoriteCache = new UserFavoriteCache();
+        ReflectionTestUtils.setField(userFavoriteCache, "maxBytes", 1024L);
+        ReflectionTestUtils.setField(userFavoriteCache, "ttlSeconds", 600L);
+        userFavoriteCache.init();
+        loads = new AtomicInteger();
+    }
+
+    /** UF01: 首次访问加载一次，之后增删只修改内存集合 */
+    @Test
+    @DisplayName("UF01: 懒加载后增删维护")
+    public void testContains_UF01_lazyLoadAndUpdate() {
+        assertTrue(userFavoriteCache.contains(1L, 5L, this::load));
+        assertFalse(userFavoriteCache.contains(1L, 4L, this::load));
+
+        userFavoriteCache.add(1L, 4L);
+        userFavoriteCache.remove(1L, 5L);
+        assertArrayEquals(new long[]{3L, 4L, 9L}, userFavoriteCache.get(1L, this::load));
+        assertEquals(1, loads.get());
+    }
+
+    /** UF02: 未加载的用户不因增删而建立集合 */
+    @Test
+    @DisplayName("UF02: 未加载时增删不建立集合")
+    public void testAdd_UF02_notLoaded() {
+        userFavoriteCache.add(2L, 1L);
+        assertEquals(0, userFavoriteCache.size());
+        assertFalse(userFavoriteCache.contains(2L, 1L, this::load));
+        assertEquals(1, loads.get());
+    }
+
+    /** UF03: 超出内存上限时淘汰部分用户 */
+    @Test
+    @DisplayName("UF03: 超出内存上限时淘汰")
+    public void testEviction_UF03_maxBytes() {
+        for (long userId = 1; userId <= 100; userId++) {
+            userFavoriteCache.get(userId, id -> new long[10]);
+        }
+        userFavoriteCache.nativeCache().cleanUp();
+        assertTrue(userFavoriteCache.weightedSize() <= 1024);
+    }
+
+    private long[] load(Long userId) {
+        loads.incrementAndGet();
+        return new long[]{9L, 3L, 5L, 3L};
+    }
+}
@@ -0,0 +1,95 @@
+package com.bookstore.controller;
+
+import com.bookstore.entity.Book;
+import com.bookstore.service.BookService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * ==================== 图书接口测试 ====================
+ * 校验条件请求（ETag、304）以及不分页时的流式列表输出。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+@DisplayName("图书接口测试")
+public class BookControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    /** ET01: 携带相同 ETag 的请求返回304且没有响应体 */
+    @Test
+    @DisplayName("ET01: 未变化时返回304")
+    public void testList_ET01_notModified() throws Exception {
+        String etag = mockMvc.perform(get("/books").param("page", "1").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String body = mockMvc.perform(get("/books").param("page", "1").param("size", "5")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("", body);
+    }
+
+    /** ET02: 图书修改后旧 ETag 不再匹配，返回新数据和新 ETag */
+    @Test
+    @DisplayName("ET02: 修改后返回新数据")
+    public void testDetail_ET02_modified() throws Exception {
+        Book book = new Book();
+        book.setName("条件请求测试图书");
+        book.setAuthor("测试作者");
+        book.setCategory("测试");
+        book.setPrice(new BigDecimal("10.00"));
+        book.setFavoriteCount(0);
+        bookService.save(book);
+
+        String etag = mockMvc.perform(get("/books/" + book.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        book.setPrice(new BigDecimal("20.00"));
+        bookService.updateById(book);
+
+        String newEtag = mockMvc.perform(get("/books/" + book.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.price").value(20.00))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newEtag);
+    }
+
+    /** ST01: 不传size时流式输出全部图书，格式与分页列表一致且不含描述 */
+    @Test
+    @DisplayName("ST01: 流式输出全部图书")
+    public void testListAll_ST01_streaming() throws Exception {
+        MvcResult result = mockMvc.perform(get("/books"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(200))
+                .andExpect(jsonPath("$.data.list").isArray())
+                .andExpect(jsonPath("$.data.list[*].description").isEmpty());
+    }
+}
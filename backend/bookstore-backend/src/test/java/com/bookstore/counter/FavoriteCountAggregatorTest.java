@@ -0,0 +1,191 @@
+package com.bookstore.counter;
+
+import com.bookstore.cache.BookCache;
+import com.bookstore.cache.BookQueryCache;
+import com.bookstore.cache.CatalogVersion;
+import com.bookstore.entity.Book;
+import com.bookstore.mapper.BookMapper;
+import com.bookstore.search.BookFacetIndex;
+import com.bookstore.search.BookSuggestIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.lenient;
+
+/**
+ * ==================== 收藏数写回聚合器测试 ====================
+ * 校验变化量的合并写回、空闲图书的累加器在刷新后被移除且不丢失之后的变化，以及按待写回变化校验收藏量上限。
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("收藏数写回聚合器测试")
+public class FavoriteCountAggregatorTest {
+
+    @Mock
+    private BookMapper bookMapper;
+
+    @Mock
+    private BookCache bookCache;
+
+    @Mock
+    private BookQueryCache bookQueryCache;
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    @Mock
+    private FavoriteLeaderboard favoriteLeaderboard;
+
+    @Mock
+    private BookSuggestIndex bookSuggestIndex;
+
+    @Mock
+    private BookFacetIndex bookFacetIndex;
+
+    @InjectMocks
+    private FavoriteCountAggregator aggregator;
+
+    /** 每次批量写回的 图书ID -> 变化量 */
+    private final List<Map<Long, Long>> batches = new ArrayList<>();
+
+    /** 数据库中的收藏数，写回时按上限截断 */
+    private final Map<Long, Integer> storedCounts = new LinkedHashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        ReflectionTestUtils.setField(aggregator, "batchSize", 500);
+        lenient().when(bookMapper.batchAddFavoriteCount(anyMap(), anyInt())).thenAnswer(invocation -> {
+            Map<Long, Long> batch = invocation.getArgument(0);
+            batches.add(new LinkedHashMap<>(batch));
+            batch.forEach((id, delta) -> storedCounts.computeIfPresent(id,
+                    (k, count) -> (int) Math.min(Math.max(count + delta, 0), Math.max(count, 1000))));
+            return batch.size();
+        });
+        lenient().when(bookMapper.selectFavoriteCounts(any())).thenAnswer(invocation -> {
+            List<Book> rows = new ArrayList<>();
+            for (Long id : invocation.<List<Long>>getArgument(0)) {
+                Integer count = storedCounts.get(id);
+                if (count != null) {
+                    Book book = new Book();
+                    book.setId(id);
+                    book.setFavoriteCount(count);
+                    rows.add(book);
+                }
+            }
+            return rows;
+        });
+    }
+
+    /** FA01: 同一本图书的多次变化合并为一次写回，抵消为0的不写 */
+    @Test
+    @DisplayName("FA01: 合并变化量写回")
+    public void testFlush_FA01_mergeDeltas() {
+        aggregator.add(1L, 1);
+        aggregator.add(1L, 1);
+        aggregator.add(2L, 1);
+        aggregator.add(2L, -1);
+
+        assertEquals(1, aggregator.flush());
+        assertEquals(List.of(Map.of(1L, 2L)), batches);
+        assertEquals(0, aggregator.getPendingBooks());
+    }
+
+    /** FA02: 一个刷新间隔内没有变化的图书移除累加器，之后的变化照常写回 */
+    @Test
+    @DisplayName("FA02: 移除空闲累加器")
+    public void testFlush_FA02_removeIdle() {
+        aggregator.add(1L, 1);
+        aggregator.add(2L, -1);
+        aggregator.flush();
+        assertEquals(2, pendingSize());
+
+        aggregator.add(2L, 1);
+        aggregator.flush();
+        assertEquals(1, pendingSize());
+
+        aggregator.flush();
+        assertEquals(0, pendingSize());
+
+        aggregator.add(1L, -1);
+        assertEquals(1, aggregator.flush());
+        assertEquals(Map.of(1L, -1L), batches.get(batches.size() - 1));
+    }
+
+    /** FA03: 数据库中的收藏数加上尚未写回的变化达到上限时拒绝，取消收藏后可以再收藏 */
+    @Test
+    @DisplayName("FA03: 按待写回变化校验收藏量上限")
+    public void testTryIncrement_FA03_cap() {
+        storedCounts.put(1L, 998);
+
+        assertTrue(aggregator.tryIncrement(1L));
+        assertTrue(aggregator.tryIncrement(1L));
+        assertFalse(aggregator.tryIncrement(1L));
+        assertEquals(2, aggregator.pendingDelta(1L));
+
+        aggregator.flush();
+        assertEquals(1000, storedCounts.get(1L));
+        assertFalse(aggregator.tryIncrement(1L));
+
+        aggregator.add(1L, -1);
+        assertTrue(aggregator.tryIncrement(1L));
+        assertFalse(aggregator.tryIncrement(1L));
+        aggregator.flush();
+        assertEquals(1000, storedCounts.get(1L));
+
+        assertFalse(aggregator.tryIncrement(2L));
+        assertEquals(0, aggregator.pendingDelta(2L));
+    }
+
+    /** FA04: 事务未结束的收藏计入上限校验，提交后计入待写回的变化，回滚后释放 */
+    @Test
+    @DisplayName("FA04: 未提交的收藏占用上限")
+    public void testTryIncrement_FA04_uncommitted() {
+        storedCounts.put(1L, 999);
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> rolledBack;
+        try {
+            assertTrue(aggregator.tryIncrement(1L));
+            rolledBack = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(0, aggregator.pendingDelta(1L));
+        assertFalse(aggregator.tryIncrement(1L));
+
+        rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertEquals(0, aggregator.pendingDelta(1L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> committed;
+        try {
+            assertTrue(aggregator.tryIncrement(1L));
+            committed = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        committed.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertEquals(1, aggregator.pendingDelta(1L));
+        assertFalse(aggregator.tryIncrement(1L));
+    }
+
+    private int pendingSize() {
+        return ((Map<?, ?>) ReflectionTestUtils.getField(aggregator, "pending")).size();
+    }
+}
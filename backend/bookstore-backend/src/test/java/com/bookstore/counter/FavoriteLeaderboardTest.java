@@ -0,0 +1,162 @@
+package com.bookstore.counter;
+
+import com.bookstore.entity.Book;
+import com.bookstore.mapper.BookMapper;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+
+/**
+ * ==================== 收藏量排行测试 ====================
+ * 与按 (收藏量, ID) 排序的参考结果比较分页和游标定位，并校验事务提交、回滚后的增量维护。
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("收藏量排行测试")
+public class FavoriteLeaderboardTest {
+
+    @Mock
+    private BookMapper bookMapper;
+
+    @InjectMocks
+    private FavoriteLeaderboard leaderboard;
+
+    /** 模拟数据库中的收藏数，图书ID -> 收藏数（null 表示字段为空） */
+    private final Map<Long, Integer> database = new TreeMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        lenient().doAnswer(invocation -> {
+            ResultHandler<Book> handler = invocation.getArgument(0);
+            DefaultResultContext<Book> context = new DefaultResultContext<>();
+            database.forEach((id, count) -> {
+                context.nextResultObject(book(id, count));
+                handler.handleResult(context);
+            });
+            return null;
+        }).when(bookMapper).scanFavoriteCounts(any(ResultHandler.class));
+        lenient().when(bookMapper.selectFavoriteCounts(anyList())).thenAnswer(invocation -> {
+            List<Book> books = new ArrayList<>();
+            for (Long id : (List<Long>) invocation.getArgument(0)) {
+                if (database.containsKey(id)) {
+                    books.add(book(id, database.get(id)));
+                }
+            }
+            return books;
+        });
+    }
+
+    /** LB01: 升序、降序的任意一段与参考排序一致，游标位置指向排序键之后的第一本 */
+    @Test
+    @DisplayName("LB01: 排名与参考排序一致")
+    public void testRange_LB01_matchesReference() {
+        Random random = new Random(7);
+        for (long id = 1; id <= 500; id++) {
+            database.put(id, random.nextInt(10) == 0 ? null : random.nextInt(20));
+        }
+
+        for (boolean asc : new boolean[]{true, false}) {
+            List<Long> expected = referenceOrder(asc);
+            assertEquals(expected, leaderboard.range(asc, 0, Integer.MAX_VALUE));
+            for (int offset : new int[]{0, 1, 37, 250, 490, 499, 500}) {
+                int to = Math.min(offset + 20, expected.size());
+                assertEquals(expected.subList(offset, to), leaderboard.range(asc, offset, 20));
+            }
+            for (int i = 0; i < expected.size(); i += 17) {
+                Long id = expected.get(i);
+                int count = database.get(id) == null ? 0 : database.get(id);
+                assertEquals(i + 1, leaderboard.positionAfter(asc, count, id));
+            }
+        }
+        assertEquals(500, leaderboard.size());
+    }
+
+    /** LB02: 提交的变化量直接生效，回滚或未在事务中计入的图书从数据库重新读取 */
+    @Test
+    @DisplayName("LB02: 提交与回滚")
+    public void testAdd_LB02_commitAndRollback() {
+        database.put(1L, 5);
+        database.put(2L, 3);
+        database.put(3L, 3);
+        assertEquals(List.of(1L, 2L, 3L), leaderboard.range(false, 0, 10));
+
+        // 图书3收藏数+3并提交：排到第一
+        database.put(3L, 6);
+        long epoch = leaderboard.add(3L, 3);
+        leaderboard.afterCompletion(3L, epoch, true);
+        assertEquals(List.of(3L, 1L, 2L), leaderboard.range(false, 0, 10));
+
+        // 图书2的变化量计入后事务回滚：数据库未变化，重新读取后恢复
+        epoch = leaderboard.add(2L, 10);
+        assertEquals(List.of(2L, 3L, 1L), leaderboard.range(false, 0, 10));
+        leaderboard.afterCompletion(2L, epoch, false);
+        assertEquals(List.of(3L, 1L, 2L), leaderboard.range(false, 0, 10));
+
+        // 图书删除、新增后标记失效
+        database.remove(1L);
+        database.put(4L, 4);
+        leaderboard.markStale(1L);
+        leaderboard.markStale(4L);
+        assertEquals(List.of(3L, 4L, 2L), leaderboard.range(false, 0, 10));
+        assertEquals(List.of(2L, 4L, 3L), leaderboard.range(true, 0, 10));
+    }
+
+    /** LB03: 全量加载期间提交的修改在加载完成后重新读取，不会停留在加载读到的旧值 */
+    @Test
+    @DisplayName("LB03: 加载期间的修改不丢失")
+    @SuppressWarnings("unchecked")
+    public void testRefresh_LB03_writeDuringBuild() {
+        database.put(1L, 5);
+        database.put(2L, 3);
+        doAnswer(invocation -> {
+            ResultHandler<Book> handler = invocation.getArgument(0);
+            DefaultResultContext<Book> context = new DefaultResultContext<>();
+            database.forEach((id, count) -> {
+                context.nextResultObject(book(id, count));
+                handler.handleResult(context);
+            });
+            // 读取结束后、加载完成前，图书2的修改提交
+            database.put(2L, 9);
+            leaderboard.refresh(2L, book(2L, 9));
+            return null;
+        }).when(bookMapper).scanFavoriteCounts(any(ResultHandler.class));
+
+        assertEquals(List.of(2L, 1L), leaderboard.range(false, 0, 10));
+    }
+
+    private List<Long> referenceOrder(boolean asc) {
+        Comparator<Long> byCount = Comparator.comparing(id -> database.get(id) == null ? 0 : database.get(id));
+        if (!asc) {
+            byCount = byCount.reversed();
+        }
+        return database.keySet().stream()
+                .sorted(byCount.thenComparing(Comparator.naturalOrder()))
+                .toList();
+    }
+
+    private static Book book(Long id, Integer favoriteCount) {
+        Book book = new Book();
+        book.setId(id);
+        book.setFavoriteCount(favoriteCount);
+        return book;
+    }
+}
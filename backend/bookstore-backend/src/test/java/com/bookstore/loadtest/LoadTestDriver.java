@@ -0,0 +1,275 @@
+package com.bookstore.loadtest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ==================== 闭环压测驱动 ====================
+ * 固定数量的并发用户各自循环发送请求，收到响应后立即发送下一个（闭环），
+ * 按接口统计吞吐量和 p50/p99/p999 延迟。预热阶段的请求不计入统计。
+ * 不是单元测试，需先以 loadtest 环境启动后端，再运行本类的 main 方法：
+ * <pre>
+ * mvn spring-boot:run -Dspring-boot.run.profiles=loadtest
+ * mvn test-compile exec:java -Dexec.mainClass=com.bookstore.loadtest.LoadTestDriver -Dexec.classpathScope=test \
+ *     -Dloadtest.threads=32 -Dloadtest.duration=60
+ * </pre>
+ * 参数（系统属性）：loadtest.baseUrl、loadtest.threads、loadtest.duration（秒）、loadtest.warmup（秒）、
+ * loadtest.users、loadtest.books，后两者需与服务端生成的数据量一致。
+ */
+public class LoadTestDriver {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final String[] QUERIES = {"编程", "数据", "历史", "java", "spring", "系统设计", "刘慈欣", "Design"};
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String baseUrl;
+
+    private final int users;
+
+    private final int books;
+
+    /** 请求场景及权重，按权重随机选取 */
+    private final List<Scenario> scenarios = new ArrayList<>();
+
+    private int totalWeight;
+
+    public LoadTestDriver(String baseUrl, int users, int books) {
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.books = books;
+        addScenario("GET /books", 40, random -> {
+            String url = "/books?page=" + (1 + random.nextInt(5)) + "&size=20";
+            if (random.nextBoolean()) {
+                url += "&query=" + URLEncoder.encode(QUERIES[random.nextInt(QUERIES.length)], StandardCharsets.UTF_8);
+            }
+            return get(url);
+        });
+        addScenario("GET /books/{id}", 40, random -> get("/books/" + (1 + random.nextInt(this.books))));
+        addScenario("GET /favorites", 15, random -> get("/favorites?page=1&size=20"));
+        addScenario("POST /auth/login", 5, random -> post("/auth/login",
+                "{\"username\":\"user" + (1 + random.nextInt(this.users)) + "\",\"password\":\""
+                        + LoadTestDataGenerator.PASSWORD + "\"}"));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String baseUrl = System.getProperty("loadtest.baseUrl", "http://localhost:8080/api");
+        int threads = Integer.getInteger("loadtest.threads", 16);
+        int duration = Integer.getInteger("loadtest.duration", 60);
+        int warmup = Integer.getInteger("loadtest.warmup", 10);
+        int users = Integer.getInteger("loadtest.users", 1000);
+        int books = Integer.getInteger("loadtest.books", 100000);
+
+        System.out.printf("压测 %s：并发 %d，预热 %d 秒，持续 %d 秒%n", baseUrl, threads, warmup, duration);
+        new LoadTestDriver(baseUrl, users, books).run(threads, warmup, duration);
+    }
+
+    /**
+     * 执行压测并输出报告
+     */
+    public void run(int threads, int warmupSeconds, int durationSeconds) throws InterruptedException {
+        long measureStart = System.nanoTime() + warmupSeconds * 1_000_000_000L;
+        long end = measureStart + durationSeconds * 1_000_000_000L;
+
+        List<Recorder> recorders = new ArrayList<>(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            Recorder recorder = new Recorder(scenarios.size());
+            recorders.add(recorder);
+            // 压测线程使用虚拟线程，高并发时驱动本身不受线程数限制
+            Thread.ofVirtual().name("loadtest-" + i).start(() -> {
+                try {
+                    loop(recorder, measureStart, end);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+
+        report(recorders, durationSeconds);
+    }
+
+    private void loop(Recorder recorder, long measureStart, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            int index = pickScenario(random);
+            HttpRequest request = scenarios.get(index).request().create(random);
+            long start = System.nanoTime();
+            if (start >= end) {
+                return;
+            }
+            boolean ok;
+            try {
+                HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                ok = response.statusCode() == 200 && resultCode(response.body()) == 200;
+            } catch (Exception e) {
+                ok = false;
+            }
+            if (start >= measureStart) {
+                recorder.record(index, System.nanoTime() - start, ok);
+            }
+        }
+    }
+
+    /**
+     * 读取响应体中顶层的 code 字段，接口出错时 HTTP 状态仍为 200，错误码在响应体中
+     * 找到 code 后丢弃剩余内容，连接可以继续复用
+     * @return code 的值，没有该字段时为 -1
+     */
+    static int resultCode(InputStream body) throws IOException {
+        try (InputStream in = body; JsonParser parser = JSON.createParser(in)) {
+            int code = -1;
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    JsonToken value = parser.nextToken();
+                    if ("code".equals(parser.currentName())) {
+                        code = value == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : -1;
+                        break;
+                    }
+                    parser.skipChildren();
+                }
+            }
+            in.transferTo(OutputStream.nullOutputStream());
+            return code;
+        }
+    }
+
+    private void report(List<Recorder> recorders, int durationSeconds) {
+        System.out.printf("%-20s %10s %8s %10s %10s %10s %10s%n",
+                "接口", "请求数", "失败", "吞吐(/s)", "p50(ms)", "p99(ms)", "p999(ms)");
+        List<long[]> all = new ArrayList<>();
+        long totalErrors = 0;
+        for (int i = 0; i < scenarios.size(); i++) {
+            List<long[]> parts = new ArrayList<>();
+            long errors = 0;
+            for (Recorder recorder : recorders) {
+                parts.add(recorder.latencies(i));
+                errors += recorder.errors[i];
+            }
+            long[] latencies = merge(parts);
+            all.add(latencies);
+            totalErrors += errors;
+            printRow(scenarios.get(i).name(), latencies, errors, durationSeconds);
+        }
+        printRow("合计", merge(all), totalErrors, durationSeconds);
+    }
+
+    private static void printRow(String name, long[] latencies, long errors, int durationSeconds) {
+        System.out.printf("%-20s %10d %8d %10.1f %10.2f %10.2f %10.2f%n",
+                name, latencies.length, errors, (double) latencies.length / durationSeconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999));
+    }
+
+    /**
+     * 取已排序延迟数组的分位数，单位毫秒
+     */
+    static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private static long[] merge(List<long[]> parts) {
+        long[] merged = new long[parts.stream().mapToInt(part -> part.length).sum()];
+        int offset = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, merged, offset, part.length);
+            offset += part.length;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    private int pickScenario(ThreadLocalRandom random) {
+        int value = random.nextInt(totalWeight);
+        for (int i = 0; i < scenarios.size(); i++) {
+            value -= scenarios.get(i).weight();
+            if (value < 0) {
+                return i;
+            }
+        }
+        return scenarios.size() - 1;
+    }
+
+    private void addScenario(String name, int weight, RequestFactory request) {
+        scenarios.add(new Scenario(name, weight, request));
+        totalWeight += weight;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private interface RequestFactory {
+        HttpRequest create(ThreadLocalRandom random);
+    }
+
+    private record Scenario(String name, int weight, RequestFactory request) {
+    }
+
+    /**
+     * 单个压测线程的延迟记录，线程结束后再合并，记录时无需同步
+     */
+    private static final class Recorder {
+
+        private final long[][] latencies;
+
+        private final int[] counts;
+
+        private final long[] errors;
+
+        Recorder(int scenarios) {
+            latencies = new long[scenarios][1024];
+            counts = new int[scenarios];
+            errors = new long[scenarios];
+        }
+
+        void record(int scenario, long nanos, boolean ok) {
+            if (!ok) {
+                errors[scenario]++;
+            }
+            if (counts[scenario] == latencies[scenario].length) {
+                latencies[scenario] = Arrays.copyOf(latencies[scenario], counts[scenario] * 2);
+            }
+            latencies[scenario][counts[scenario]++] = nanos;
+        }
+
+        long[] latencies(int scenario) {
+            return Arrays.copyOf(latencies[scenario], counts[scenario]);
+        }
+    }
+}
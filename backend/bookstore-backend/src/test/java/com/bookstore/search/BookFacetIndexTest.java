@@ -0,0 +1,161 @@
+package com.bookstore.search;
+
+import com.bookstore.dto.BookFacets;
+import com.bookstore.entity.Book;
+import com.bookstore.mapper.BookMapper;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+
+/**
+ * ==================== 分面统计测试 ====================
+ * 校验全部图书和查询命中图书的分类、价格区间统计，以及图书新增、修改、删除、收藏数变化后的增量更新。
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("分面统计测试")
+public class BookFacetIndexTest {
+
+    @Mock
+    private BookMapper bookMapper;
+
+    @InjectMocks
+    private BookFacetIndex bookFacetIndex;
+
+    /** 模拟数据库中的图书，按ID升序 */
+    private final Map<Long, Book> database = new TreeMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        ReflectionTestUtils.setField(bookFacetIndex, "priceEdges", new int[]{50, 20});
+        bookFacetIndex.init();
+
+        put(book(1L, "编程", "19.99", 10));
+        put(book(2L, "编程", "20.00", 5));
+        put(book(3L, "科幻", "45.50", 7));
+        put(book(4L, "编程", "88.00", 0));
+        put(book(5L, null, null, 3));
+
+        lenient().doAnswer(invocation -> {
+            ResultHandler<Book> handler = invocation.getArgument(0);
+            DefaultResultContext<Book> context = new DefaultResultContext<>();
+            for (Book book : database.values()) {
+                context.nextResultObject(book);
+                handler.handleResult(context);
+            }
+            return null;
+        }).when(bookMapper).scanFacetFields(any(ResultHandler.class));
+        lenient().when(bookMapper.selectFacetFields(anyList())).thenAnswer(invocation -> {
+            List<Book> books = new ArrayList<>();
+            for (Long id : (List<Long>) invocation.getArgument(0)) {
+                if (database.containsKey(id)) {
+                    books.add(database.get(id));
+                }
+            }
+            return books;
+        });
+    }
+
+    /** FC01: 分类按图书数倒序，价格区间含下限不含上限，未分类、未定价的图书只计入总数 */
+    @Test
+    @DisplayName("FC01: 全部图书与查询结果的统计")
+    public void testFacets_FC01_allAndSubset() {
+        BookFacets all = bookFacetIndex.facets(null);
+        assertEquals(5, all.total());
+        assertEquals(List.of(new BookFacets.CategoryCount("编程", 3, 15), new BookFacets.CategoryCount("科幻", 1, 7)),
+                all.categories());
+        assertEquals(List.of(1, 2, 1), all.prices().stream().map(BookFacets.PriceBucket::count).toList());
+        assertEquals(0, new BigDecimal("20").compareTo(all.prices().get(1).min()));
+        assertNull(all.prices().get(2).max());
+
+        // 不存在的ID不计入
+        BookFacets subset = bookFacetIndex.facets(List.of(3L, 4L, 99L));
+        assertEquals(2, subset.total());
+        assertEquals(List.of(new BookFacets.CategoryCount("科幻", 1, 7), new BookFacets.CategoryCount("编程", 1, 0)),
+                subset.categories());
+        assertEquals(List.of(0, 1, 1), subset.prices().stream().map(BookFacets.PriceBucket::count).toList());
+    }
+
+    /** FC02: 图书写入立即生效，收藏数变化在标记失效后的下一次统计生效 */
+    @Test
+    @DisplayName("FC02: 增量更新")
+    public void testRefresh_FC02_incremental() {
+        assertEquals(5, bookFacetIndex.size());
+
+        Book moved = book(1L, "科幻", "60.00", 10);
+        database.put(1L, moved);
+        bookFacetIndex.refresh(1L, moved);
+
+        database.remove(4L);
+        bookFacetIndex.refresh(4L, null);
+
+        Book added = book(6L, "历史", "30.00", 2);
+        database.put(6L, added);
+        bookFacetIndex.refresh(6L, added);
+
+        put(book(2L, "编程", "20.00", 40));
+        bookFacetIndex.markStale(2L);
+
+        BookFacets all = bookFacetIndex.facets(null);
+        assertEquals(5, all.total());
+        assertEquals(List.of(new BookFacets.CategoryCount("科幻", 2, 17), new BookFacets.CategoryCount("历史", 1, 2),
+                new BookFacets.CategoryCount("编程", 1, 40)), all.categories());
+        assertEquals(List.of(0, 3, 1), all.prices().stream().map(BookFacets.PriceBucket::count).toList());
+        assertEquals(5, bookFacetIndex.size());
+    }
+
+    /** FC03: 全量加载期间提交的修改在加载完成后重新读取 */
+    @Test
+    @DisplayName("FC03: 加载期间的修改不丢失")
+    @SuppressWarnings("unchecked")
+    public void testRefresh_FC03_writeDuringBuild() {
+        doAnswer(invocation -> {
+            ResultHandler<Book> handler = invocation.getArgument(0);
+            DefaultResultContext<Book> context = new DefaultResultContext<>();
+            for (Book book : database.values()) {
+                context.nextResultObject(book);
+                handler.handleResult(context);
+            }
+            // 读取结束后、加载完成前，图书3的修改提交
+            Book moved = book(3L, "历史", "45.50", 7);
+            put(moved);
+            bookFacetIndex.refresh(3L, moved);
+            return null;
+        }).when(bookMapper).scanFacetFields(any(ResultHandler.class));
+
+        assertEquals(List.of(new BookFacets.CategoryCount("编程", 3, 15), new BookFacets.CategoryCount("历史", 1, 7)),
+                bookFacetIndex.facets(null).categories());
+    }
+
+    private void put(Book book) {
+        database.put(book.getId(), book);
+    }
+
+    private static Book book(Long id, String category, String price, int favoriteCount) {
+        Book book = new Book();
+        book.setId(id);
+        book.setCategory(category);
+        book.setPrice(price == null ? null : new BigDecimal(price));
+        book.setFavoriteCount(favoriteCount);
+        return book;
+    }
+}
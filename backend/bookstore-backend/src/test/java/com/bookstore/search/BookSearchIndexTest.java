@@ -0,0 +1,135 @@
+package com.bookstore.search;
+
+import com.bookstore.entity.Book;
+import com.bookstore.mapper.BookMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ==================== 图书搜索索引测试 ====================
+ * 校验倒排索引的检索结果与原先逐条 contains 过滤的结果一致。
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("图书搜索索引测试")
+public class BookSearchIndexTest {
+
+    @Mock
+    private BookMapper bookMapper;
+
+    @InjectMocks
+    private BookSearchIndex bookSearchIndex;
+
+    private List<Book> books;
+
+    @BeforeEach
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        books = new ArrayList<>();
+        books.add(book(1L, "Java编程思想", "Bruce Eckel", "编程", now.minusDays(3)));
+        books.add(book(2L, "Effective Java", "Joshua Bloch", "编程", now.minusDays(1)));
+        books.add(book(3L, "Python入门", "Bruce Lee", "编程", now.minusDays(2)));
+        books.add(book(4L, "三体", "刘慈欣", "科幻", null));
+        when(bookMapper.selectList(any())).thenReturn(books);
+    }
+
+    /** IX01: 英文子串忽略大小写，按更新时间倒序 */
+    @Test
+    @DisplayName("IX01: 英文子串忽略大小写，按更新时间倒序")
+    public void testSearch_IX01_latinSubstring() {
+        assertEquals(List.of(2L, 1L), bookSearchIndex.search("JAVA"));
+        assertEquals(List.of(3L, 1L), bookSearchIndex.search("bruce"));
+    }
+
+    /** IX02: 中文单字与多字查询 */
+    @Test
+    @DisplayName("IX02: 中文单字与多字查询")
+    public void testSearch_IX02_cjk() {
+        assertEquals(List.of(4L), bookSearchIndex.search("慈欣"));
+        assertEquals(List.of(4L), bookSearchIndex.search("科"));
+        assertEquals(List.of(2L, 3L, 1L), bookSearchIndex.search("编程"));
+    }
+
+    /** IX03: 无命中返回空列表 */
+    @Test
+    @DisplayName("IX03: 无命中返回空列表")
+    public void testSearch_IX03_noMatch() {
+        assertTrue(bookSearchIndex.search("Golang").isEmpty());
+        assertTrue(bookSearchIndex.search("java思想").isEmpty());
+    }
+
+    /** IX04: 刷新后反映图书修改与删除 */
+    @Test
+    @DisplayName("IX04: 刷新后反映图书修改与删除")
+    public void testRefresh_IX04_updateAndDelete() {
+        assertEquals(List.of(4L), bookSearchIndex.search("三体"));
+
+        Book renamed = book(4L, "球状闪电", "刘慈欣", "科幻", null);
+        when(bookMapper.selectById(4L)).thenReturn(renamed);
+        bookSearchIndex.refresh(4L);
+        assertTrue(bookSearchIndex.search("三体").isEmpty());
+        assertEquals(List.of(4L), bookSearchIndex.search("闪电"));
+
+        when(bookMapper.selectById(4L)).thenReturn(null);
+        bookSearchIndex.refresh(4L);
+        assertTrue(bookSearchIndex.search("刘慈欣").isEmpty());
+        assertEquals(3, bookSearchIndex.size());
+    }
+
+    /** IX05: 全量构建期间提交的修改在构建完成后重新加载，构建开始前的修改由构建本身读到 */
+    @Test
+    @DisplayName("IX05: 构建期间的修改不丢失")
+    public void testRefresh_IX05_writeDuringBuild() {
+        Book renamed = book(4L, "球状闪电", "刘慈欣", "科幻", null);
+        // 尚未开始构建，不需要记录
+        bookSearchIndex.refresh(1L, null);
+        // 构建读取的是修改前的数据，修改在读取过程中提交
+        when(bookMapper.selectList(any())).thenAnswer(invocation -> {
+            bookSearchIndex.refresh(4L, renamed);
+            return books;
+        });
+        when(bookMapper.selectById(4L)).thenReturn(renamed);
+
+        assertEquals(List.of(4L), bookSearchIndex.search("闪电"));
+        assertTrue(bookSearchIndex.search("三体").isEmpty());
+        assertEquals(List.of(1L), bookSearchIndex.search("思想"));
+        verify(bookMapper, never()).selectById(1L);
+    }
+
+    /** IX06: 全角、兼容字符的书名用原文和规范形式都能检索到，与查询词使用同一规范化 */
+    @Test
+    @DisplayName("IX06: 全角、兼容字符按规范形式匹配")
+    public void testSearch_IX06_normalizedFields() {
+        books.add(book(5L, "Ｃ＋＋程序设计", "谭浩强", "编程", null));
+        books.add(book(6L, "三体Ⅱ", "刘慈欣", "科幻", null));
+
+        assertEquals(List.of(5L), bookSearchIndex.search("Ｃ＋＋程序设计"));
+        assertEquals(List.of(5L), bookSearchIndex.search("c++"));
+        assertEquals(List.of(6L), bookSearchIndex.search("三体Ⅱ"));
+        assertEquals(List.of(4L, 6L), bookSearchIndex.search("三体"));
+    }
+
+    private static Book book(Long id, String name, String author, String category, LocalDateTime updateTime) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName(name);
+        book.setAuthor(author);
+        book.setCategory(category);
+        book.setUpdateTime(updateTime);
+        return book;
+    }
+}
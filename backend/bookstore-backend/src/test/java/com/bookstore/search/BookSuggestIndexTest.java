@@ -0,0 +1,156 @@
+package com.bookstore.search;
+
+import com.bookstore.dto.Suggestion;
+import com.bookstore.entity.Book;
+import com.bookstore.mapper.BookMapper;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+
+/**
+ * ==================== 输入提示索引测试 ====================
+ * 校验前缀匹配（含空格后的单词）、按收藏量之和排序，以及图书修改、删除、收藏数变化后的增量更新。
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("输入提示索引测试")
+public class BookSuggestIndexTest {
+
+    @Mock
+    private BookMapper bookMapper;
+
+    @InjectMocks
+    private BookSuggestIndex bookSuggestIndex;
+
+    /** 模拟数据库中的图书 */
+    private final Map<Long, Book> database = new LinkedHashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        put(book(1L, "Java编程思想", "Bruce Eckel", "编程", 100));
+        put(book(2L, "Effective Java", "Joshua Bloch", "编程", 80));
+        put(book(3L, "JavaScript高级程序设计", "Nicholas C. Zakas", "编程", 90));
+        put(book(4L, "Design Patterns", "Erich Gamma", "计算机", 50));
+        put(book(5L, "三体", "刘慈欣", "科幻", 120));
+
+        lenient().doAnswer(invocation -> {
+            ResultHandler<Book> handler = invocation.getArgument(0);
+            DefaultResultContext<Book> context = new DefaultResultContext<>();
+            for (Book book : database.values()) {
+                context.nextResultObject(book);
+                handler.handleResult(context);
+            }
+            return null;
+        }).when(bookMapper).scanSuggestFields(any(ResultHandler.class));
+        lenient().when(bookMapper.selectSuggestFields(anyList())).thenAnswer(invocation -> {
+            List<Book> books = new ArrayList<>();
+            for (Long id : (List<Long>) invocation.getArgument(0)) {
+                if (database.containsKey(id)) {
+                    books.add(database.get(id));
+                }
+            }
+            return books;
+        });
+    }
+
+    /** SG01: 前缀忽略大小写，空格后的单词同样可以匹配，按收藏量倒序 */
+    @Test
+    @DisplayName("SG01: 前缀匹配与排序")
+    public void testSuggest_SG01_prefixAndOrder() {
+        assertEquals(List.of("Java编程思想", "JavaScript高级程序设计", "Effective Java"),
+                texts(bookSuggestIndex.suggest("JAVA", 10)));
+        assertEquals(List.of("Effective Java"), texts(bookSuggestIndex.suggest("eff", 10)));
+        assertEquals(List.of("Design Patterns"), texts(bookSuggestIndex.suggest("patt", 10)));
+
+        // 分类的收藏量为其下图书之和，排在单本图书之前
+        List<Suggestion> category = bookSuggestIndex.suggest("编", 10);
+        assertEquals(new Suggestion("编程", "category", 270), category.get(0));
+        assertEquals("Java编程思想", bookSuggestIndex.suggest("Java编", 10).get(0).text());
+
+        assertEquals(1, bookSuggestIndex.suggest("j", 1).size());
+        assertTrue(bookSuggestIndex.suggest("python", 10).isEmpty());
+        assertTrue(bookSuggestIndex.suggest(" ", 10).isEmpty());
+    }
+
+    /** SG02: 图书修改、删除立即生效，收藏数变化在标记失效后的下一次查询生效 */
+    @Test
+    @DisplayName("SG02: 增量更新")
+    public void testRefresh_SG02_incremental() {
+        assertEquals(List.of("Java编程思想", "JavaScript高级程序设计", "Effective Java"),
+                texts(bookSuggestIndex.suggest("java", 10)));
+
+        Book renamed = book(3L, "TypeScript编程", "Nicholas C. Zakas", "编程", 90);
+        database.put(3L, renamed);
+        bookSuggestIndex.refresh(3L, renamed);
+        assertEquals(List.of("Java编程思想", "Effective Java"), texts(bookSuggestIndex.suggest("java", 10)));
+        assertEquals(List.of("TypeScript编程"), texts(bookSuggestIndex.suggest("type", 10)));
+
+        database.remove(5L);
+        bookSuggestIndex.refresh(5L, null);
+        assertTrue(bookSuggestIndex.suggest("三", 10).isEmpty());
+        assertTrue(bookSuggestIndex.suggest("刘", 10).isEmpty());
+
+        put(book(2L, "Effective Java", "Joshua Bloch", "编程", 300));
+        bookSuggestIndex.markStale(2L);
+        assertEquals(new Suggestion("Effective Java", "name", 300), bookSuggestIndex.suggest("e", 10).get(0));
+        assertEquals(new Suggestion("编程", "category", 490), bookSuggestIndex.suggest("编", 10).get(0));
+    }
+
+    /** SG03: 全量构建期间提交的修改在构建完成后重新加载 */
+    @Test
+    @DisplayName("SG03: 构建期间的修改不丢失")
+    @SuppressWarnings("unchecked")
+    public void testRefresh_SG03_writeDuringBuild() {
+        doAnswer(invocation -> {
+            ResultHandler<Book> handler = invocation.getArgument(0);
+            DefaultResultContext<Book> context = new DefaultResultContext<>();
+            for (Book book : database.values()) {
+                context.nextResultObject(book);
+                handler.handleResult(context);
+            }
+            // 读取结束后、构建完成前，图书5的修改提交
+            Book renamed = book(5L, "球状闪电", "刘慈欣", "科幻", 120);
+            put(renamed);
+            bookSuggestIndex.refresh(5L, renamed);
+            return null;
+        }).when(bookMapper).scanSuggestFields(any(ResultHandler.class));
+
+        assertEquals(List.of("球状闪电"), texts(bookSuggestIndex.suggest("球", 10)));
+        assertTrue(bookSuggestIndex.suggest("三", 10).isEmpty());
+    }
+
+    private void put(Book book) {
+        database.put(book.getId(), book);
+    }
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::text).toList();
+    }
+
+    private static Book book(Long id, String name, String author, String category, int favoriteCount) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName(name);
+        book.setAuthor(author);
+        book.setCategory(category);
+        book.setFavoriteCount(favoriteCount);
+        return book;
+    }
+}
@@ -0,0 +1,125 @@
+package com.bookstore.search;
+
+import com.bookstore.cache.BookQueryCache;
+import com.bookstore.entity.Book;
+import com.bookstore.mapper.BookMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 数据库检索一致性测试 ====================
+ * 在内嵌 H2 数据库（loadtest 环境，生成少量数据）上校验数据库检索与内存检索的结果和顺序一致，
+ * 包括大小写、多字节字符、全角和兼容字符、LIKE 通配符和无结果的查询。
+ */
+@SpringBootTest(properties = {
+        "bookstore.loadtest.users=20",
+        "bookstore.loadtest.books=3000",
+        "bookstore.loadtest.favorites-per-user=10"
+})
+@ActiveProfiles("loadtest")
+@DisplayName("数据库检索一致性测试")
+public class SqlBookSearchTest {
+
+    private static final String[] QUERIES = {
+            "编程", "史", "人工智能", "数据库原理", "第3版", "JAVA", "java", "Design Patterns", "de",
+            "bruce eckel", "刘慈欣", "a", "%", "_", "\\", "不存在的书名"
+    };
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private SqlBookSearch sqlBookSearch;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    /** SS01: 书名、作者、分类检索，结果和顺序（更新时间倒序、ID升序）与内存索引一致 */
+    @Test
+    @DisplayName("SS01: 默认检索与内存索引一致")
+    public void testSearch_SS01_matchesMemoryIndex() {
+        for (String query : QUERIES) {
+            String normalized = BookQueryCache.normalize(query);
+            assertEquals(bookSearchIndex.search(normalized), sqlBookSearch.search(normalized), query);
+        }
+        assertFalse(sqlBookSearch.search("编程").isEmpty());
+    }
+
+    /** SS02: 按收藏量排序的检索同时匹配描述，与逐条过滤、排序的结果一致 */
+    @Test
+    @DisplayName("SS02: 收藏量排序检索与逐条过滤一致")
+    public void testFavoriteSortIds_SS02_matchesJavaFilter() {
+        List<Book> books = bookMapper.selectList(null);
+        for (String query : QUERIES) {
+            String normalized = BookQueryCache.normalize(query);
+            for (boolean asc : new boolean[]{true, false}) {
+                Comparator<Book> byCount = Comparator.comparingInt(
+                        book -> book.getFavoriteCount() == null ? 0 : book.getFavoriteCount());
+                if (!asc) {
+                    byCount = byCount.reversed();
+                }
+                List<Long> expected = books.stream()
+                        .filter(book -> contains(book.getName(), normalized) || contains(book.getAuthor(), normalized)
+                                || contains(book.getCategory(), normalized) || contains(book.getDescription(), normalized))
+                        .sorted(byCount.thenComparing(Book::getId))
+                        .map(Book::getId)
+                        .toList();
+                assertEquals(expected, sqlBookSearch.favoriteSortIds(normalized, asc), query);
+            }
+        }
+    }
+
+    /** SS03: 书名为全角、兼容字符的图书用原文和规范形式都能检索到，两种检索方式结果一致 */
+    @Test
+    @DisplayName("SS03: 全角、兼容字符按规范形式匹配")
+    public void testSearch_SS03_normalizedFields() {
+        Book fullWidth = newBook("Ｃ＋＋程序设计", "Ｂｊａｒｎｅ");
+        Book roman = newBook("三体Ⅱ", "刘慈欣");
+        List<Book> inserted = List.of(fullWidth, roman);
+        try {
+            for (Book book : inserted) {
+                bookMapper.insert(book);
+                Book current = bookMapper.selectById(book.getId());
+                bookSearchIndex.refresh(book.getId(), current);
+                sqlBookSearch.refresh(book.getId(), current);
+            }
+            for (String query : new String[]{"Ｃ＋＋程序设计", "c++", "bjarne", "三体Ⅱ", "三体ii"}) {
+                String normalized = BookQueryCache.normalize(query);
+                List<Long> ids = sqlBookSearch.search(normalized);
+                assertEquals(bookSearchIndex.search(normalized), ids, query);
+                assertTrue(ids.contains(query.startsWith("三体") ? roman.getId() : fullWidth.getId()), query);
+                assertTrue(sqlBookSearch.favoriteSortIds(normalized, false).containsAll(ids), query);
+            }
+        } finally {
+            for (Book book : inserted) {
+                if (book.getId() != null) {
+                    bookMapper.deleteById(book.getId());
+                    bookSearchIndex.refresh(book.getId(), null);
+                }
+            }
+        }
+    }
+
+    private static Book newBook(String name, String author) {
+        Book book = new Book();
+        book.setName(name);
+        book.setAuthor(author);
+        book.setCategory("测试");
+        book.setPrice(new BigDecimal("10.00"));
+        book.setFavoriteCount(0);
+        return book;
+    }
+
+    private static boolean contains(String value, String normalizedQuery) {
+        return value != null && BookQueryCache.normalize(value).contains(normalizedQuery);
+    }
+}
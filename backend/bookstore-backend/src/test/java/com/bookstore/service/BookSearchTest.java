@@ -170,6 +170,44 @@ public class BookSearchTest {
         assertEquals(0, updated.getFavoriteCount());
     }
 
+    /**
+     * SS07: 收藏数未达上限，加1并返回true
+     */
+    @Test
+    @DisplayName("SS07: 收藏数未达上限，加1并返回true")
+    public void testIncrementFavoriteCount_SS07_belowLimit() {
+        Book book = new Book();
+        book.setName("收藏数999");
+        book.setAuthor("作者");
+        book.setCategory("测试");
+        book.setPrice(new BigDecimal("10.0"));
+        book.setFavoriteCount(999);
+        bookService.save(book);
+        testBooks.add(book);
+        assertTrue(bookService.incrementFavoriteCount(book.getId()));
+        Book updated = bookService.getById(book.getId());
+        assertEquals(1000, updated.getFavoriteCount());
+    }
+
+    /**
+     * SS08: 收藏数达到上限，不变并返回false
+     */
+    @Test
+    @DisplayName("SS08: 收藏数达到上限，不变并返回false")
+    public void testIncrementFavoriteCount_SS08_atLimit() {
+        Book book = new Book();
+        book.setName("收藏数1000");
+        book.setAuthor("作者");
+        book.setCategory("测试");
+        book.setPrice(new BigDecimal("10.0"));
+        book.setFavoriteCount(1000);
+        bookService.save(book);
+        testBooks.add(book);
+        assertFalse(bookService.incrementFavoriteCount(book.getId()));
+        Book updated = bookService.getById(book.getId());
+        assertEquals(1000, updated.getFavoriteCount());
+    }
+
     // ==================== 黑盒测试（等价类划分/边界值分析） ====================
 
     /** TC-S01: 标准有效输入 */
@@ -166,4 +166,14 @@ public class FavoriteServiceTest {
         boolean result = favoriteService.removeFavorite(userId, bookId);
         assertFalse(result);
     }
-} 
\ No newline at end of file
+
+    /** TC-F07: 批量查询收藏状态，只返回已收藏的图书ID */
+    @DisplayName("TC-F07: 批量查询收藏状态")
+    @Test
+    public void testFilterFavorites_TC_F07_batch() {
+        favoriteService.addFavorite(userId, bookId);
+        List<Long> result = favoriteService.filterFavorites(userId, List.of(bookId + 100000, bookId, bookId));
+        assertEquals(List.of(bookId), result);
+        assertTrue(favoriteService.filterFavorites(userId, new ArrayList<>()).isEmpty());
+    }
+}
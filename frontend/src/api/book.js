@@ -2,13 +2,15 @@ import request from './request'
 
 /**
  * 获取图书列表
- * 支持搜索查询功能
- * @param {Object} params 请求参数
+ * 支持搜索查询功能，传入 page/size 时由后端分页
+ * @param {Object} params 请求参数 (query, page, size)
  * @returns {Promise} 图书列表响应
  */
 export function getBookList(params) {
   const requestParams = {
-    query: params?.query || ''
+    query: params?.query || '',
+    page: params?.page,
+    size: params?.size
   };
   
   return request({
@@ -32,6 +34,21 @@ export function searchBooks(params) {
   })
 }
 
+/**
+ * 搜索框输入提示
+ * 按前缀匹配书名、作者、分类，按收藏量排序
+ * @param {String} prefix 已输入的内容
+ * @param {Number} limit 最多返回条数
+ * @returns {Promise} 提示列表响应 [{text, field, favoriteCount}]
+ */
+export function suggestBooks(prefix, limit = 10) {
+  return request({
+    url: '/books/suggest',
+    method: 'get',
+    params: { prefix, limit }
+  })
+}
+
 /**
  * 获取图书详情
  * @param {Number} id 图书ID
@@ -85,13 +102,15 @@ export function deleteBook(id) {
 
 /**
  * 按收藏量排序获取图书列表
- * @param {Object} params 查询参数
+ * @param {Object} params 查询参数 (query, sortType, page, size)
  * @returns {Promise} 排序后的图书列表响应
  */
 export function getBooksByFavoriteCount(params) {
   const requestParams = {
     query: params?.query || '',
-    sortType: params?.sortType || 'desc'  // 默认降序(高到低)
+    sortType: params?.sortType || 'desc',  // 默认降序(高到低)
+    page: params?.page,
+    size: params?.size
   };
   
   return request({
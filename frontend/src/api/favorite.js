@@ -37,6 +37,19 @@ export function isFavorite(bookId) {
   })
 }
 
+/**
+ * 批量检查是否已收藏
+ * @param {Array<Number>} bookIds 图书ID列表
+ * @returns {Promise} data 为已收藏的图书ID列表
+ */
+export function checkFavorites(bookIds) {
+  return request({
+    url: '/favorites/check',
+    method: 'post',
+    data: { bookIds }
+  })
+}
+
 /**
  * 获取用户收藏列表
  * @returns {Promise}
@@ -7,9 +7,20 @@ import { ElMessage } from 'element-plus'
  */
 const service = axios.create({
   baseURL: '/api',  // API基础路径，与后端接口路径匹配
-  timeout: 10000    // 请求超时时间：10秒
+  timeout: 10000,   // 请求超时时间：10秒
+  // 304表示数据未变化，使用本地保存的响应
+  validateStatus: status => (status >= 200 && status < 300) || status === 304
 })
 
+/**
+ * 带ETag的GET响应，按请求地址和参数保存
+ * 再次请求时发送If-None-Match，服务端返回304时直接使用保存的数据
+ */
+const ETAG_CACHE_SIZE = 50
+const etagCache = new Map()
+
+const cacheKey = config => `${config.url}?${JSON.stringify(config.params || {})}`
+
 /**
  * 请求拦截器
  * 在请求发送前处理请求配置
@@ -17,6 +28,12 @@ const service = axios.create({
 service.interceptors.request.use(
   config => {
     // 这里可以添加认证令牌等通用请求配置
+    if (config.method === 'get') {
+      const cached = etagCache.get(cacheKey(config))
+      if (cached) {
+        config.headers['If-None-Match'] = cached.etag
+      }
+    }
     return config
   },
   error => {
@@ -31,6 +48,17 @@ service.interceptors.request.use(
  */
 service.interceptors.response.use(
   response => {
+    const key = response.config.method === 'get' ? cacheKey(response.config) : null
+    if (response.status === 304) {
+      const cached = etagCache.get(key)
+      if (cached) {
+        // 返回副本，页面修改数据不影响保存的响应
+        return structuredClone(cached.data)
+      }
+      // 保存的响应已被淘汰，不带条件重新请求
+      response.config.headers.delete('If-None-Match')
+      return service(response.config)
+    }
     const res = response.data
     
     // 如果状态码不是200，视为错误
@@ -42,6 +70,15 @@ service.interceptors.response.use(
       })
       return Promise.reject(new Error(res.message || '请求失败'))
     } else {
+      const etag = response.headers.etag
+      if (key && etag) {
+        // 重新插入以更新顺序，超出容量时删除最早的记录
+        etagCache.delete(key)
+        etagCache.set(key, { etag, data: structuredClone(res) })
+        if (etagCache.size > ETAG_CACHE_SIZE) {
+          etagCache.delete(etagCache.keys().next().value)
+        }
+      }
       return res
     }
   },